@@ -0,0 +1,90 @@
+package com.example.bankcards;
+
+import com.example.bankcards.util.CardBlindIndexUtil;
+import com.example.bankcards.util.CardEncryptionUtil;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+/**
+ * Поднимает контекст приложения поверх встроенной H2 (режим PostgreSQL) для бенчмарков,
+ * которым нужны репозитории и транзакции. Миграции Liquibase применяются как обычно.
+ */
+public final class BenchmarkContext {
+
+    private BenchmarkContext() {
+    }
+
+    /**
+     * @param extraProperties дополнительные свойства в формате {@code key=value}
+     */
+    public static ConfigurableApplicationContext start(String... extraProperties) {
+        String dbName = "bench_" + UUID.randomUUID().toString().replace("-", "");
+
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.datasource.url=jdbc:h2:mem:" + dbName + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.jpa.show-sql=false",
+                "--spring.jpa.properties.hibernate.format_sql=false",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--logging.level.root=WARN",
+                "--logging.level.org.hibernate.SQL=WARN",
+                "--logging.level.org.hibernate.type.descriptor.sql=WARN"));
+        for (String property : extraProperties) {
+            args.add("--" + property);
+        }
+
+        return new SpringApplicationBuilder(BankRestApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args.toArray(String[]::new));
+    }
+
+    /**
+     * Быстро заполняет таблицу карт напрямую через JDBC batch (без шифрования и сервисного слоя)
+     */
+    public static void insertCards(ConfigurableApplicationContext context, long userId, int count) {
+        Date expiry = Date.valueOf(LocalDate.now().plusYears(3));
+        context.getBean(JdbcTemplate.class).batchUpdate(
+                "INSERT INTO cards (user_id, card_number_encrypted, card_mask, card_last4, expiry_date, status, balance) " +
+                        "VALUES (?, 'encrypted', '**** **** **** 0000', '0000', ?, 'ACTIVE', 100.00)",
+                IntStream.range(0, count).boxed().toList(), 1000,
+                (ps, i) -> {
+                    ps.setLong(1, userId);
+                    ps.setDate(2, expiry);
+                });
+    }
+
+    /**
+     * Заполняет таблицу карт настоящими зашифрованными номерами {@code 4000000000000000 + i}.
+     * Слепой индекс номера заполняется, только если {@code withHash}.
+     */
+    public static List<String> insertEncryptedCards(ConfigurableApplicationContext context, long userId,
+                                                    int count, boolean withHash) {
+        List<String> numbers = IntStream.range(0, count).mapToObj(i -> String.format("4000%012d", i)).toList();
+        List<String> encrypted = context.getBean(CardEncryptionUtil.class).encryptAll(numbers);
+        CardBlindIndexUtil blindIndexUtil = context.getBean(CardBlindIndexUtil.class);
+        Date expiry = Date.valueOf(LocalDate.now().plusYears(3));
+
+        context.getBean(JdbcTemplate.class).batchUpdate(
+                "INSERT INTO cards (user_id, card_number_encrypted, card_number_hash, card_mask, card_last4, expiry_date, status, balance) " +
+                        "VALUES (?, ?, ?, '**** **** **** 0000', '0000', ?, 'ACTIVE', 100.00)",
+                IntStream.range(0, count).boxed().toList(), 1000,
+                (ps, i) -> {
+                    ps.setLong(1, userId);
+                    ps.setString(2, encrypted.get(i));
+                    ps.setString(3, withHash ? blindIndexUtil.hash(numbers.get(i)) : null);
+                    ps.setDate(4, expiry);
+                });
+        return numbers;
+    }
+}
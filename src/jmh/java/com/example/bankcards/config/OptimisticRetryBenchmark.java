@@ -0,0 +1,142 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.BenchmarkContext;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.Status;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.CardService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.LockModeType;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Смена статуса карты 8 потоками: оптимистичная блокировка с повтором ({@link RetryOnConflict})
+ * против SELECT ... FOR UPDATE. Конкуренция задаётся числом «горячих» карт, между которыми
+ * распределяются операции: 1 — все потоки на одной карте, 256 — конфликты редки.
+ * Перед замером проверяется, что совет повтора применён к CardService; число конфликтов,
+ * повторов и исчерпанных попыток печатается после прогона.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class OptimisticRetryBenchmark {
+
+    @Param({"1", "8", "256"})
+    private int hotCards;
+
+    private ConfigurableApplicationContext context;
+    private StatusToggler toggler;
+    private long[] cardIds;
+    private final LongAdder exhausted = new LongAdder();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(
+                "app.cards.retry.max-attempts=10",
+                // Конфликты здесь ожидаемы — Hibernate логирует каждый как ошибку batch
+                "logging.level.org.hibernate.orm.jdbc.batch=off");
+
+        Advisor retryAdvisor = context.getBean("optimisticRetryAdvisor", Advisor.class);
+        // Повтор должен оборачивать изменяющие методы CardService, а не только тестовый объект
+        if (!Arrays.asList(((Advised) context.getBean(CardService.class)).getAdvisors()).contains(retryAdvisor)) {
+            throw new IllegalStateException("CardService is not advised with " + retryAdvisor);
+        }
+
+        User user = context.getBean(UserRepository.class).save(User.builder()
+                .username("retry-user")
+                .password("retry")
+                .role(Role.USER)
+                .build());
+        BenchmarkContext.insertCards(context, user.getId(), hotCards);
+        List<Long> ids = context.getBean(JdbcTemplate.class).queryForList("SELECT id FROM cards", Long.class);
+        cardIds = ids.stream().mapToLong(Long::longValue).toArray();
+
+        EntityManager entityManager = SharedEntityManagerCreator.createSharedEntityManager(
+                context.getBean(EntityManagerFactory.class));
+        StatusToggler target = new StatusToggler(
+                new TransactionTemplate(context.getBean(PlatformTransactionManager.class)), entityManager);
+        ProxyFactory proxyFactory = new ProxyFactory(target);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvisor(retryAdvisor);
+        toggler = (StatusToggler) proxyFactory.getProxy();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        MeterRegistry meterRegistry = context.getBean(MeterRegistry.class);
+        System.out.printf("%n[hotCards=%d] conflicts=%.0f retries=%.0f exhausted=%d%n", hotCards,
+                meterRegistry.counter("bank.card.conflicts", "method", "toggleOptimistic").count(),
+                meterRegistry.counter("bank.card.retries", "method", "toggleOptimistic").count(),
+                exhausted.sum());
+        context.close();
+    }
+
+    @Benchmark
+    public void optimisticWithRetry() {
+        try {
+            toggler.toggleOptimistic(randomCard());
+        } catch (OptimisticLockingFailureException e) {
+            exhausted.increment();
+        }
+    }
+
+    @Benchmark
+    public void pessimisticLock() {
+        toggler.togglePessimistic(randomCard());
+    }
+
+    private long randomCard() {
+        return cardIds[ThreadLocalRandom.current().nextInt(cardIds.length)];
+    }
+
+    /**
+     * Чтение карты, смена статуса и запись — то же, что делают blockCard/activateCard
+     */
+    public static class StatusToggler {
+
+        private final TransactionTemplate transactionTemplate;
+        private final EntityManager entityManager;
+
+        public StatusToggler(TransactionTemplate transactionTemplate, EntityManager entityManager) {
+            this.transactionTemplate = transactionTemplate;
+            this.entityManager = entityManager;
+        }
+
+        @RetryOnConflict
+        public void toggleOptimistic(long cardId) {
+            transactionTemplate.executeWithoutResult(status -> flip(entityManager.find(Card.class, cardId)));
+        }
+
+        public void togglePessimistic(long cardId) {
+            transactionTemplate.executeWithoutResult(status ->
+                    flip(entityManager.find(Card.class, cardId, LockModeType.PESSIMISTIC_WRITE)));
+        }
+
+        private static void flip(Card card) {
+            card.setStatus(card.getStatus() == Status.ACTIVE ? Status.BLOCKED : Status.ACTIVE);
+        }
+    }
+}
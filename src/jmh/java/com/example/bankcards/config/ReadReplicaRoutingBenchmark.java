@@ -0,0 +1,132 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.BenchmarkContext;
+import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.CardTransferRequestDto;
+import com.example.bankcards.dto.CursorPageDto;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.CardService;
+import liquibase.exception.LiquibaseException;
+import liquibase.integration.spring.SpringLiquibase;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Маршрутизация чтений на реплику: две встроенные H2 (основная БД и «реплика» с другими данными).
+ * Перед замером проверяется, что read-only чтения идут на реплику, после перевода пользователь
+ * в окне read-your-writes читает с основной БД, а по истечении окна — снова с реплики.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReadReplicaRoutingBenchmark {
+
+    private static final int PRIMARY_CARDS = 2;
+    private static final int REPLICA_CARDS = 5;
+    private static final long WINDOW_MILLIS = 300;
+
+    private ConfigurableApplicationContext context;
+    private CardService cardService;
+    private ReadYourWritesTracker tracker;
+    private Long userId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws LiquibaseException, InterruptedException {
+        String replicaUrl = "jdbc:h2:mem:replica_" + UUID.randomUUID().toString().replace("-", "")
+                + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+        DriverManagerDataSource replicaDataSource = new DriverManagerDataSource(replicaUrl, "sa", "");
+        migrate(replicaDataSource);
+
+        context = BenchmarkContext.start(
+                "app.db.replica.enabled=true",
+                "app.db.replica.url=" + replicaUrl,
+                "app.db.replica.username=sa",
+                "app.db.replica.password=",
+                "app.db.replica.driver-class-name=org.h2.Driver",
+                "app.db.replica.read-your-writes-window=" + WINDOW_MILLIS + "ms");
+        cardService = context.getBean(CardService.class);
+        tracker = context.getBean(ReadYourWritesTracker.class);
+
+        User user = context.getBean(UserRepository.class).save(User.builder()
+                .username("replica-user")
+                .password("replica")
+                .role(Role.USER)
+                .build());
+        userId = user.getId();
+        BenchmarkContext.insertCards(context, userId, PRIMARY_CARDS);
+
+        // «Реплика» отличается от основной БД числом карт — по нему видно, откуда пришло чтение
+        JdbcTemplate replica = new JdbcTemplate(replicaDataSource);
+        replica.update("INSERT INTO users (id, username, password, role) VALUES (?, 'replica-user', 'replica', 'USER')",
+                userId);
+        for (int i = 0; i < REPLICA_CARDS; i++) {
+            replica.update("INSERT INTO cards (user_id, card_number_encrypted, card_mask, card_last4, expiry_date, status, balance) " +
+                            "VALUES (?, 'encrypted', '**** **** **** 0000', '0000', ?, 'ACTIVE', 100.00)",
+                    userId, Date.valueOf(LocalDate.now().plusYears(3)));
+        }
+
+        expectCards(REPLICA_CARDS, "read-only query before any write");
+
+        List<Long> cardIds = context.getBean(JdbcTemplate.class)
+                .queryForList("SELECT id FROM cards WHERE user_id = ? ORDER BY id", Long.class, userId);
+        cardService.transferMoney(CardTransferRequestDto.builder()
+                .fromCardId(cardIds.get(0))
+                .toCardId(cardIds.get(1))
+                .amount(new BigDecimal("1.00"))
+                .build(), user);
+        expectCards(PRIMARY_CARDS, "read inside the read-your-writes window");
+        if (replica.queryForObject("SELECT COUNT(*) FROM cards WHERE balance <> 100.00", Long.class) != 0) {
+            throw new IllegalStateException("Transfer was written to the replica");
+        }
+
+        Thread.sleep(WINDOW_MILLIS * 2);
+        expectCards(REPLICA_CARDS, "read after the read-your-writes window");
+    }
+
+    private void expectCards(int expected, String description) {
+        CursorPageDto<CardDto> page = cardService.getUserCardsByCursor(userId, null, 100, true);
+        if (page.getTotalElements() != expected) {
+            throw new IllegalStateException("Expected " + expected + " cards for " + description
+                    + ", got " + page.getTotalElements());
+        }
+    }
+
+    private static void migrate(DriverManagerDataSource dataSource) throws LiquibaseException {
+        SpringLiquibase liquibase = new SpringLiquibase();
+        liquibase.setDataSource(dataSource);
+        liquibase.setChangeLog("classpath:db/changelog-master.yaml");
+        liquibase.setResourceLoader(new DefaultResourceLoader());
+        liquibase.afterPropertiesSet();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public CursorPageDto<CardDto> replicaRead() {
+        return cardService.getUserCardsByCursor(userId, null, 10, false);
+    }
+
+    @Benchmark
+    public CursorPageDto<CardDto> primaryPinnedRead() {
+        tracker.recordWrite(userId);
+        return cardService.getUserCardsByCursor(userId, null, 10, false);
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.bankcards.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Накладные расходы ограничителя частоты при 8 потоках: у каждого потока свой пользователь
+ * (обычная нагрузка), все потоки на одном пользователе (конкуренция за одно ведро) и отказ
+ * пользователю, превысившему лимит. Перед замером проверяются ёмкость ведра, пополнение
+ * и удаление простаивающих вёдер.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class UserRateLimiterBenchmark {
+
+    private static final long HOT_USER = 0;
+    private static final long FLOODING_USER = -1;
+
+    private final AtomicLong nextUserId = new AtomicLong(1);
+
+    private UserRateLimiter generousLimiter;
+    private UserRateLimiter strictLimiter;
+
+    @State(Scope.Thread)
+    public static class ThreadUser {
+        long userId;
+
+        @Setup(Level.Trial)
+        public void setUp(UserRateLimiterBenchmark benchmark) {
+            userId = benchmark.nextUserId.getAndIncrement();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws InterruptedException {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        // Лимит, которого хорошо ведущие себя пользователи не достигают даже в цикле бенчмарка
+        generousLimiter = new UserRateLimiter(1_000_000, 1e9, Duration.ofMinutes(10), 100_000, meterRegistry);
+        strictLimiter = new UserRateLimiter(1, 1e-3, Duration.ofMinutes(10), 100_000, new SimpleMeterRegistry());
+        strictLimiter.tryAcquire(FLOODING_USER);
+
+        verifyBucket();
+    }
+
+    private static void verifyBucket() throws InterruptedException {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        UserRateLimiter limiter = new UserRateLimiter(5, 10, Duration.ZERO, 1_000, meterRegistry);
+        for (int i = 0; i < 5; i++) {
+            if (limiter.tryAcquire(42) != 0) {
+                throw new IllegalStateException("Request " + (i + 1) + " of a full bucket was rejected");
+            }
+        }
+        if (limiter.tryAcquire(42) == 0) {
+            throw new IllegalStateException("Request over capacity was allowed");
+        }
+        if (limiter.tryAcquire(43) != 0) {
+            throw new IllegalStateException("Another user shares the bucket");
+        }
+
+        // 10 в секунду — токен через 100 мс, полное пополнение через 500 мс
+        Thread.sleep(1_000);
+        if (limiter.activeBuckets() != 0) {
+            throw new IllegalStateException("Idle buckets were not evicted: " + limiter.activeBuckets());
+        }
+        if (limiter.tryAcquire(42) != 0) {
+            throw new IllegalStateException("Bucket was not refilled");
+        }
+        double rejected = meterRegistry.counter("bank.ratelimit.requests", "outcome", "rejected").count();
+        if (rejected != 1) {
+            throw new IllegalStateException("Expected 1 rejected request in metrics, got " + rejected);
+        }
+    }
+
+    @Benchmark
+    public long ownBucket(ThreadUser user) {
+        return generousLimiter.tryAcquire(user.userId);
+    }
+
+    @Benchmark
+    public long sharedBucket() {
+        return generousLimiter.tryAcquire(HOT_USER);
+    }
+
+    @Benchmark
+    public long rejected() {
+        return strictLimiter.tryAcquire(FLOODING_USER);
+    }
+}
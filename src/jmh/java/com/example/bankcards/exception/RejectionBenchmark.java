@@ -0,0 +1,149 @@
+package com.example.bankcards.exception;
+
+import com.example.bankcards.BenchmarkContext;
+import com.example.bankcards.dto.CardTransferRequestDto;
+import com.example.bankcards.dto.ErrorResponseDto;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.CardService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Отказы в переводе через CardService и GlobalExceptionHandler: та же карта (ответ из кэша),
+ * чужая карта (ответ из кэша) и недостаточно средств (текст с ID карты, ответ собирается заново).
+ * Отдельно — цена создания исключения глубоко в стеке со стеком вызовов и без него.
+ * Перед замером проверяется, что доменные исключения без стека, а готовый ответ совпадает
+ * с сериализованным ErrorResponseDto.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RejectionBenchmark {
+
+    /**
+     * Примерная глубина стека при отказе внутри сервиса, вызванного из Spring MVC
+     */
+    private static final int STACK_DEPTH = 150;
+
+    private ConfigurableApplicationContext context;
+    private CardService cardService;
+    private GlobalExceptionHandler handler;
+    private ObjectMapper objectMapper;
+    private User user;
+    private CardTransferRequestDto sameCard;
+    private CardTransferRequestDto foreignCard;
+    private CardTransferRequestDto insufficientFunds;
+
+    @Setup(Level.Trial)
+    public void setUp() throws JsonProcessingException {
+        context = BenchmarkContext.start();
+        cardService = context.getBean(CardService.class);
+        handler = context.getBean(GlobalExceptionHandler.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        user = userRepository.save(User.builder().username("rejected-user").password("x").role(Role.USER).build());
+        User stranger = userRepository.save(User.builder().username("stranger").password("x").role(Role.USER).build());
+        BenchmarkContext.insertCards(context, user.getId(), 2);
+        BenchmarkContext.insertCards(context, stranger.getId(), 1);
+        List<Long> own = jdbcTemplate.queryForList(
+                "SELECT id FROM cards WHERE user_id = ? ORDER BY id", Long.class, user.getId());
+        Long foreign = jdbcTemplate.queryForObject("SELECT id FROM cards WHERE user_id = ?", Long.class, stranger.getId());
+
+        BigDecimal amount = new BigDecimal("1.00");
+        sameCard = new CardTransferRequestDto(own.get(0), own.get(0), amount);
+        foreignCard = new CardTransferRequestDto(foreign, own.get(0), amount);
+        insufficientFunds = new CardTransferRequestDto(own.get(0), own.get(1), new BigDecimal("1000000.00"));
+
+        if (new CardNotFoundException("Card not found").getStackTrace().length != 0) {
+            throw new IllegalStateException("Domain exceptions must not capture a stack trace");
+        }
+        ResponseEntity<?> response = sameCardRejection();
+        byte[] expected = objectMapper.writeValueAsBytes(new ErrorResponseDto(
+                "TRANSFER_TO_SAME_CARD", "Cannot transfer to the same card"));
+        if (response.getStatusCode() != HttpStatus.BAD_REQUEST
+                || !Arrays.equals((byte[]) response.getBody(), expected)
+                || response != sameCardRejection()) {
+            throw new IllegalStateException("Unexpected precomputed response: " + response);
+        }
+        if (foreignCardRejection().getStatusCode() != HttpStatus.NOT_FOUND) {
+            throw new IllegalStateException("Foreign card transfer was not rejected with 404");
+        }
+        if (insufficientFundsRejection().length == 0) {
+            throw new IllegalStateException("Empty insufficient funds response");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ResponseEntity<byte[]> sameCardRejection() {
+        try {
+            cardService.transferMoney(sameCard, user);
+            throw new IllegalStateException("Transfer to the same card succeeded");
+        } catch (TransferBetweenSameCardException e) {
+            return handler.handleTransferBetweenSameCard(e);
+        }
+    }
+
+    @Benchmark
+    public ResponseEntity<byte[]> foreignCardRejection() {
+        try {
+            cardService.transferMoney(foreignCard, user);
+            throw new IllegalStateException("Transfer from a foreign card succeeded");
+        } catch (CardNotFoundException e) {
+            return handler.handleCardNotFound(e);
+        }
+    }
+
+    /**
+     * Текст ошибки содержит ID карты: DTO создаётся и сериализуется (как это сделал бы MVC) на каждый отказ
+     */
+    @Benchmark
+    public byte[] insufficientFundsRejection() throws JsonProcessingException {
+        try {
+            cardService.transferMoney(insufficientFunds, user);
+            throw new IllegalStateException("Overdraft transfer succeeded");
+        } catch (InsufficientFundsException e) {
+            return objectMapper.writeValueAsBytes(handler.handleInsufficientFunds(e).getBody());
+        }
+    }
+
+    @Benchmark
+    public RuntimeException stacklessAtDepth() {
+        return atDepth(STACK_DEPTH, false);
+    }
+
+    @Benchmark
+    public RuntimeException stackTraceAtDepth() {
+        return atDepth(STACK_DEPTH, true);
+    }
+
+    private static RuntimeException atDepth(int depth, boolean withStackTrace) {
+        if (depth > 0) {
+            return atDepth(depth - 1, withStackTrace);
+        }
+        return withStackTrace
+                ? new RuntimeException("Card not found")
+                : new CardNotFoundException("Card not found");
+    }
+}
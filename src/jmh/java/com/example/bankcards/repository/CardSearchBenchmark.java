@@ -0,0 +1,132 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.BenchmarkContext;
+import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.CardSearchFilter;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.Status;
+import com.example.bankcards.entity.User;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Поиск карт администратором по 50 000 карт разных владельцев, статусов, сроков и номеров.
+ * Перед замером для всех 32 комбинаций фильтров проверяется план H2 (EXPLAIN): полного
+ * сканирования быть не должно. Это ловит комбинацию без подходящего индекса, но о плане
+ * PostgreSQL ничего не говорит — его проверяют EXPLAIN ANALYZE на PostgreSQL.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CardSearchBenchmark {
+
+    private static final int CARDS = 50_000;
+    private static final int USERS = 100;
+    private static final int PAGE_SIZE = 20;
+
+    private ConfigurableApplicationContext context;
+    private CardSearchJdbcRepository searchRepository;
+    private long userId;
+    private LocalDate today;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        searchRepository = context.getBean(CardSearchJdbcRepository.class);
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        UserRepository userRepository = context.getBean(UserRepository.class);
+
+        long[] userIds = IntStream.range(0, USERS)
+                .mapToLong(i -> userRepository.save(User.builder()
+                        .username("search-user-" + i)
+                        .password("search")
+                        .role(Role.USER)
+                        .build()).getId())
+                .toArray();
+        userId = userIds[0];
+        today = LocalDate.now();
+
+        Status[] statuses = Status.values();
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO cards (user_id, card_number_encrypted, card_mask, card_last4, expiry_date, status, balance) " +
+                        "VALUES (?, 'encrypted', ?, ?, ?, ?, 100.00)",
+                IntStream.range(0, CARDS).boxed().toList(), 5000,
+                (ps, i) -> {
+                    String last4 = String.format("%04d", i % 10_000);
+                    ps.setLong(1, userIds[i % USERS]);
+                    ps.setString(2, "**** **** **** " + last4);
+                    ps.setString(3, last4);
+                    ps.setDate(4, Date.valueOf(today.plusDays(i % 2000 - 500)));
+                    ps.setString(5, statuses[i % statuses.length].name());
+                });
+        jdbcTemplate.execute("ANALYZE");
+
+        assertNoFullScans(jdbcTemplate);
+    }
+
+    /**
+     * Все комбинации фильтров должны читаться по индексу (в плане H2)
+     */
+    private void assertNoFullScans(JdbcTemplate jdbcTemplate) {
+        for (int mask = 0; mask < 32; mask++) {
+            CardSearchFilter filter = CardSearchFilter.builder()
+                    .userId((mask & 1) != 0 ? userId : null)
+                    .status((mask & 2) != 0 ? Status.BLOCKED : null)
+                    .expiryFrom((mask & 4) != 0 ? today : null)
+                    .expiryTo((mask & 8) != 0 ? today.plusDays(30) : null)
+                    .last4((mask & 16) != 0 ? "0042" : null)
+                    .build();
+            CardSearchJdbcRepository.SearchQuery query = searchRepository.buildQuery(filter, 0, PAGE_SIZE);
+            String plan = jdbcTemplate.queryForObject("EXPLAIN " + query.sql(), String.class, query.args().toArray());
+            if (plan == null || plan.contains("tableScan")) {
+                throw new IllegalStateException("H2 full scan for filter " + filter + ":\n" + plan);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<CardDto> noFilter() {
+        return searchRepository.search(new CardSearchFilter(), 0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<CardDto> byLast4() {
+        return searchRepository.search(CardSearchFilter.builder().last4("0042").build(), 0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<CardDto> byStatus() {
+        return searchRepository.search(CardSearchFilter.builder().status(Status.BLOCKED).build(), 0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<CardDto> byUserAndStatus() {
+        return searchRepository.search(CardSearchFilter.builder()
+                .userId(userId)
+                .status(Status.BLOCKED)
+                .build(), 0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<CardDto> byExpiryRange() {
+        return searchRepository.search(CardSearchFilter.builder()
+                .expiryFrom(today)
+                .expiryTo(today.plusDays(7))
+                .build(), 0, PAGE_SIZE);
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.BenchmarkContext;
+import com.example.bankcards.dto.LoginRequestDto;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.InvalidCredentialsException;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.AuthService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Накладные расходы аутентификации на запрос: фильтр JWT с кэшами проверенных токенов и пользователей
+ * против проверки подписи и поиска пользователя по логину в каждом запросе.
+ * Перед замером проверяется вход по паролю и отказ для подделанного токена и неизвестного пользователя.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtAuthenticationBenchmark {
+
+    private static final String PASSWORD = "secret-password";
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> {
+    };
+
+    private ConfigurableApplicationContext context;
+    private JwtAuthenticationFilter filter;
+    private JwtTokenProvider tokenProvider;
+    private UserRepository userRepository;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setUp() throws ServletException, IOException {
+        context = BenchmarkContext.start();
+        tokenProvider = context.getBean(JwtTokenProvider.class);
+        userRepository = context.getBean(UserRepository.class);
+        JwtPrincipalResolver principalResolver = context.getBean(JwtPrincipalResolver.class);
+        filter = new JwtAuthenticationFilter(principalResolver);
+
+        User user = userRepository.save(User.builder()
+                .username("jwt-user")
+                .password(context.getBean(PasswordEncoder.class).encode(PASSWORD))
+                .role(Role.USER)
+                .build());
+
+        AuthService authService = context.getBean(AuthService.class);
+        token = authService.login(new LoginRequestDto("jwt-user", PASSWORD)).getAccessToken();
+        try {
+            authService.login(new LoginRequestDto("jwt-user", "wrong"));
+            throw new IllegalStateException("Login with a wrong password succeeded");
+        } catch (InvalidCredentialsException expected) {
+            // ожидаемо
+        }
+
+        Authentication authentication = authenticate(token);
+        if (authentication == null || !(authentication.getPrincipal() instanceof AuthenticatedUser principal)
+                || !principal.id().equals(user.getId())) {
+            throw new IllegalStateException("Valid token was not authenticated: " + authentication);
+        }
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+        if (authenticate(tampered) != null) {
+            throw new IllegalStateException("Tampered token was accepted");
+        }
+        if (principalResolver.resolve(tokenProvider.generateToken("ghost")).isPresent()) {
+            throw new IllegalStateException("Token of an unknown user was accepted");
+        }
+    }
+
+    private Authentication authenticate(String bearer) throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/cards/transfer");
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + bearer);
+        try {
+            filter.doFilter(request, new MockHttpServletResponse(), NO_OP_CHAIN);
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Authentication cachedFilter() throws ServletException, IOException {
+        return authenticate(token);
+    }
+
+    @Benchmark
+    public Optional<User> verifyAndLoadEachRequest() {
+        return userRepository.findByUsername(tokenProvider.parse(token).getSubject());
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.BenchmarkContext;
+import com.example.bankcards.dto.CardCreateRequestDto;
+import com.example.bankcards.dto.CardTransferRequestDto;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.UserRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Стоимость одного перевода: поштучные вызовы transferMoney против одного transferMoneyBatch.
+ * Оба метода выполняют {@link #BATCH_SIZE} переводов за вызов, результат нормирован на перевод.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchTransferBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+    private static final int CARDS = 20;
+
+    private ConfigurableApplicationContext context;
+    private CardService cardService;
+    private User user;
+    private List<CardTransferRequestDto> forward;
+    private List<CardTransferRequestDto> backward;
+    private boolean flip;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        cardService = context.getBean(CardService.class);
+
+        user = context.getBean(UserRepository.class).save(User.builder()
+                .username("batch-user")
+                .password("batch")
+                .role(Role.USER)
+                .build());
+
+        long[] cardIds = new long[CARDS];
+        for (int i = 0; i < CARDS; i++) {
+            cardIds[i] = cardService.createCard(CardCreateRequestDto.builder()
+                    .userId(user.getId())
+                    .cardNumber(String.format("5536%012d", i))
+                    .expiryDate(LocalDate.now().plusYears(3))
+                    .balance(new BigDecimal("1000000.00"))
+                    .build()).getId();
+        }
+
+        // Цепочка переводов с ненулевым итоговым изменением по картам; обратный пакет возвращает балансы
+        forward = new ArrayList<>(BATCH_SIZE);
+        backward = new ArrayList<>(BATCH_SIZE);
+        BigDecimal amount = new BigDecimal("1.00");
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            long from = cardIds[i % (CARDS - 1)];
+            long to = cardIds[i % (CARDS - 1) + 1];
+            forward.add(new CardTransferRequestDto(from, to, amount));
+            backward.add(new CardTransferRequestDto(to, from, amount));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void singleTransfers() {
+        flip = !flip;
+        for (CardTransferRequestDto transfer : flip ? forward : backward) {
+            cardService.transferMoney(transfer, user);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public Object batchTransfer() {
+        flip = !flip;
+        return cardService.transferMoneyBatch(flip ? forward : backward, user);
+    }
+}
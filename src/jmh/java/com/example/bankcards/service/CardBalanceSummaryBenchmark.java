@@ -0,0 +1,161 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.BenchmarkContext;
+import com.example.bankcards.dto.*;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.UserRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сводка по картам (100 000 карт у 1 000 пользователей): чтение из таблиц сводки
+ * против SUM/COUNT по cards. Перед замером проверяется, что сверка находит карты,
+ * вставленные в обход приложения, а после операций через сервисы расхождений нет.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CardBalanceSummaryBenchmark {
+
+    private static final int USERS = 1_000;
+    private static final int CARDS_PER_USER = 100;
+
+    private ConfigurableApplicationContext context;
+    private CardBalanceSummaryService summaryService;
+    private JdbcTemplate jdbcTemplate;
+    private Long userId;
+    private Long cardId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        summaryService = context.getBean(CardBalanceSummaryService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        UserRepository userRepository = context.getBean(UserRepository.class);
+
+        User owner = null;
+        for (int i = 0; i < USERS; i++) {
+            User user = userRepository.save(User.builder()
+                    .username("summary-user-" + i)
+                    .password("summary")
+                    .role(Role.USER)
+                    .build());
+            BenchmarkContext.insertCards(context, user.getId(), CARDS_PER_USER);
+            if (owner == null) {
+                owner = user;
+            }
+        }
+        userId = owner.getId();
+        cardId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM cards", Long.class);
+
+        // Карты вставлены в обход сервисов — сверка должна найти их все и исправить сводку
+        BalanceReconciliationResultDto initial = summaryService.reconcile();
+        if (initial.getUserMismatches() != USERS || initial.getTotalMismatches() != 0) {
+            throw new IllegalStateException("Unexpected initial reconciliation: " + initial);
+        }
+
+        exerciseCardOperations(owner);
+
+        BalanceReconciliationResultDto after = summaryService.reconcile();
+        if (after.getUserMismatches() != 0 || after.getTotalMismatches() != 0) {
+            throw new IllegalStateException("Card operations left the summary out of sync: " + after);
+        }
+        long cards = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM cards", Long.class);
+        if (summaryService.getSystemSummary().getCardCount() != cards) {
+            throw new IllegalStateException("System summary does not match " + cards + " cards");
+        }
+    }
+
+    /**
+     * Выпуск, блокировка, активация, перевод, удаление, истечение срока и пакетный выпуск через сервисы
+     */
+    private void exerciseCardOperations(User owner) {
+        CardService cardService = context.getBean(CardService.class);
+        List<Long> cardIds = jdbcTemplate.queryForList(
+                "SELECT id FROM cards WHERE user_id = ? ORDER BY id LIMIT 4", Long.class, owner.getId());
+
+        CardDto created = cardService.createCard(CardCreateRequestDto.builder()
+                .userId(owner.getId())
+                .cardNumber("5200000000000001")
+                .expiryDate(LocalDate.now().plusYears(3))
+                .balance(new BigDecimal("250.00"))
+                .build());
+        cardService.blockCard(cardIds.get(0), owner);
+        cardService.blockCard(cardIds.get(1), owner);
+        cardService.activateCard(cardIds.get(1), owner);
+        cardService.transferMoney(CardTransferRequestDto.builder()
+                .fromCardId(created.getId())
+                .toCardId(cardIds.get(2))
+                .amount(new BigDecimal("75.50"))
+                .build(), owner);
+        cardService.deleteCard(cardIds.get(3));
+
+        jdbcTemplate.update("UPDATE cards SET expiry_date = ? WHERE id = ? OR id = ?",
+                Date.valueOf(LocalDate.now().minusDays(1)), cardIds.get(0), cardIds.get(2));
+        context.getBean(CardExpiryService.class).expireCards();
+
+        CardIssuanceService issuanceService = context.getBean(CardIssuanceService.class);
+        String jobId = issuanceService.startJob(List.of(
+                CardCreateRequestDto.builder()
+                        .userId(owner.getId())
+                        .cardNumber("5200000000000002")
+                        .expiryDate(LocalDate.now().plusYears(3))
+                        .balance(new BigDecimal("10.00"))
+                        .build())).getJobId();
+        while (issuanceService.getJob(jobId).getStatus() == BulkIssueStatus.RUNNING) {
+            Thread.onSpinWait();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * Меняет по строке в cards и в сводке, как это делает любая операция с картой.
+     * Без изменений H2 вернул бы повторный результат агрегата из кэша, не читая таблицу.
+     */
+    private void touch() {
+        jdbcTemplate.update("UPDATE cards SET updated_at = CURRENT_TIMESTAMP WHERE id = ?", cardId);
+        jdbcTemplate.update("UPDATE card_balance_aggregates SET card_count = card_count WHERE user_id = ?", userId);
+        jdbcTemplate.update("UPDATE card_balance_totals SET card_count = card_count WHERE slot = 0");
+    }
+
+    @Benchmark
+    public BalanceSummaryDto systemSummary() {
+        touch();
+        return summaryService.getSystemSummary();
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> systemSumScan() {
+        touch();
+        return jdbcTemplate.queryForList("SELECT status, COUNT(*), SUM(balance) FROM cards GROUP BY status");
+    }
+
+    @Benchmark
+    public BalanceSummaryDto userSummary() {
+        touch();
+        return summaryService.getUserSummary(userId);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> userSumScan() {
+        touch();
+        return jdbcTemplate.queryForList(
+                "SELECT status, COUNT(*), SUM(balance) FROM cards WHERE user_id = ? GROUP BY status", userId);
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.BenchmarkContext;
+import com.example.bankcards.dto.BlindIndexBackfillResultDto;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.UserRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Заполнение слепого индекса у 50 000 карт в зависимости от числа потоков.
+ * Перед каждым замером индекс сбрасывается.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CardBlindIndexBackfillBenchmark {
+
+    private static final int CARDS = 50_000;
+
+    @Param({"1", "4"})
+    private int threads;
+
+    private ConfigurableApplicationContext context;
+    private CardBlindIndexBackfillService backfillService;
+    private JdbcTemplate jdbcTemplate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("app.crypto.blind-index-backfill.threads=" + threads);
+        backfillService = context.getBean(CardBlindIndexBackfillService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        User user = context.getBean(UserRepository.class).save(User.builder()
+                .username("backfill-user")
+                .password("backfill")
+                .role(Role.USER)
+                .build());
+        BenchmarkContext.insertEncryptedCards(context, user.getId(), CARDS, false);
+    }
+
+    @Setup(Level.Invocation)
+    public void resetIndex() {
+        jdbcTemplate.update("UPDATE cards SET card_number_hash = NULL");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public BlindIndexBackfillResultDto backfill() {
+        BlindIndexBackfillResultDto result = backfillService.backfill();
+        if (result.getUpdated() != CARDS) {
+            throw new IllegalStateException("Expected " + CARDS + " indexed cards, got " + result);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.BenchmarkContext;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.UserRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Перевод половины из 20 000 карт в EXPIRED: порционные UPDATE по набору ID
+ * против обновления по одной карте в цикле. Перед каждым замером карты снова активируются.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CardExpiryBenchmark {
+
+    private static final int CARDS = 20_000;
+    private static final int EXPIRED = CARDS / 2;
+
+    private ConfigurableApplicationContext context;
+    private CardExpiryService cardExpiryService;
+    private JdbcTemplate jdbcTemplate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        cardExpiryService = context.getBean(CardExpiryService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        User user = context.getBean(UserRepository.class).save(User.builder()
+                .username("expiry-user")
+                .password("expiry")
+                .role(Role.USER)
+                .build());
+        BenchmarkContext.insertCards(context, user.getId(), CARDS);
+        jdbcTemplate.update("UPDATE cards SET expiry_date = ? WHERE id IN (SELECT id FROM cards ORDER BY id LIMIT ?)",
+                Date.valueOf(LocalDate.now().minusDays(1)), EXPIRED);
+
+        // Блокировку держит другой узел — запуск должен быть пропущен
+        jdbcTemplate.update("INSERT INTO job_locks (name, locked_until, locked_by) VALUES (?, ?, 'other-node')",
+                CardExpiryService.LOCK_NAME, Timestamp.valueOf(LocalDateTime.now().plusMinutes(5)));
+        if (cardExpiryService.expireCards() != 0) {
+            throw new IllegalStateException("Card expiry ran while another node held the lock");
+        }
+        jdbcTemplate.update("DELETE FROM job_locks");
+    }
+
+    @Setup(Level.Invocation)
+    public void reactivateCards() {
+        jdbcTemplate.update("UPDATE cards SET status = 'ACTIVE'");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int chunkedExpiry() {
+        int expired = cardExpiryService.expireCards();
+        if (expired != EXPIRED) {
+            throw new IllegalStateException("Expected " + EXPIRED + " expired cards, got " + expired);
+        }
+        return expired;
+    }
+
+    @Benchmark
+    public int rowByRowExpiry() {
+        List<Long> cardIds = jdbcTemplate.queryForList(
+                "SELECT id FROM cards WHERE expiry_date < ? AND status <> 'EXPIRED'", Long.class,
+                Date.valueOf(LocalDate.now()));
+        int expired = 0;
+        for (Long cardId : cardIds) {
+            expired += jdbcTemplate.update("UPDATE cards SET status = 'EXPIRED', updated_at = ? WHERE id = ?",
+                    Timestamp.valueOf(LocalDateTime.now()), cardId);
+        }
+        return expired;
+    }
+}
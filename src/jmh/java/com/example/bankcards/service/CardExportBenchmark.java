@@ -0,0 +1,58 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.BenchmarkContext;
+import com.example.bankcards.dto.ExportFormat;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.UserRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Полная потоковая выгрузка карт. Время на выгрузку должно расти линейно с числом карт,
+ * а выделение памяти на карту (-prof gc, gc.alloc.rate.norm / cards) — оставаться постоянным.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx256m")
+public class CardExportBenchmark {
+
+    @Param({"10000", "100000"})
+    private int cards;
+
+    @Param({"NDJSON", "CSV"})
+    private ExportFormat format;
+
+    private ConfigurableApplicationContext context;
+    private CardExportService cardExportService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        cardExportService = context.getBean(CardExportService.class);
+
+        User user = context.getBean(UserRepository.class).save(User.builder()
+                .username("export-user")
+                .password("export")
+                .role(Role.USER)
+                .build());
+        BenchmarkContext.insertCards(context, user.getId(), cards);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void exportCards() throws IOException {
+        cardExportService.exportCards(format, OutputStream.nullOutputStream());
+    }
+}
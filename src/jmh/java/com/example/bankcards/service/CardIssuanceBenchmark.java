@@ -0,0 +1,98 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.BenchmarkContext;
+import com.example.bankcards.dto.BulkIssueJobDto;
+import com.example.bankcards.dto.BulkIssueStatus;
+import com.example.bankcards.dto.CardCreateRequestDto;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.UserRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Время выпуска одной карты: пакетный выпуск (20 000 карт в задаче) против createCard по одной.
+ * Цель пакетного выпуска — не больше 100 мкс на карту (10 000 карт/с на узел).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CardIssuanceBenchmark {
+
+    private static final int BULK_CARDS = 20_000;
+    private static final int SINGLE_CARDS = 1_000;
+
+    private ConfigurableApplicationContext context;
+    private CardIssuanceService cardIssuanceService;
+    private CardService cardService;
+    private Long userId;
+    private long nextNumber;
+
+    private List<CardCreateRequestDto> requests;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        cardIssuanceService = context.getBean(CardIssuanceService.class);
+        cardService = context.getBean(CardService.class);
+
+        userId = context.getBean(UserRepository.class).save(User.builder()
+                .username("issuance-user")
+                .password("issuance")
+                .role(Role.USER)
+                .build()).getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * Новые номера на каждый замер, иначе все карты будут отклонены как дубликаты
+     */
+    @Setup(Level.Invocation)
+    public void prepareRequests() {
+        requests = IntStream.range(0, BULK_CARDS)
+                .mapToObj(i -> CardCreateRequestDto.builder()
+                        .userId(userId)
+                        .cardNumber(String.format("5100%012d", nextNumber++))
+                        .expiryDate(LocalDate.now().plusYears(3))
+                        .balance(new BigDecimal("100.00"))
+                        .build())
+                .toList();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BULK_CARDS)
+    public BulkIssueJobDto bulkIssue() throws InterruptedException {
+        String jobId = cardIssuanceService.startJob(requests).getJobId();
+        BulkIssueJobDto job = cardIssuanceService.getJob(jobId);
+        while (job.getStatus() == BulkIssueStatus.RUNNING) {
+            Thread.sleep(1);
+            job = cardIssuanceService.getJob(jobId);
+        }
+        if (job.getCreated() != BULK_CARDS) {
+            throw new IllegalStateException("Expected " + BULK_CARDS + " created cards, got " + job.getCreated()
+                    + ", errors: " + job.getErrors().subList(0, Math.min(5, job.getErrors().size())));
+        }
+        return job;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SINGLE_CARDS)
+    public void singleCreates() {
+        for (int i = 0; i < SINGLE_CARDS; i++) {
+            cardService.createCard(requests.get(i));
+        }
+    }
+}
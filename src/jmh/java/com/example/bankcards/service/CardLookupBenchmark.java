@@ -0,0 +1,78 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.BenchmarkContext;
+import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.util.CardEncryptionUtil;
+import com.example.bankcards.util.SqlStatementCounter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Поиск карты по номеру: слепой индекс (один SELECT по уникальному индексу)
+ * против перебора с расшифровкой всех номеров, который был бы нужен без индекса.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CardLookupBenchmark {
+
+    @Param({"1000", "20000"})
+    private int cards;
+
+    private ConfigurableApplicationContext context;
+    private CardService cardService;
+    private CardEncryptionUtil encryptionUtil;
+    private JdbcTemplate jdbcTemplate;
+    private String cardNumber;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        cardService = context.getBean(CardService.class);
+        encryptionUtil = context.getBean(CardEncryptionUtil.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        User user = context.getBean(UserRepository.class).save(User.builder()
+                .username("lookup-user")
+                .password("lookup")
+                .role(Role.USER)
+                .build());
+        List<String> numbers = BenchmarkContext.insertEncryptedCards(context, user.getId(), cards, true);
+        // Худший случай для перебора — карта в конце таблицы
+        cardNumber = numbers.get(numbers.size() - 1);
+
+        SqlStatementCounter.assertMaxStatements(1, () -> cardService.findCardByNumber(cardNumber));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public CardDto blindIndexLookup() {
+        return cardService.findCardByNumber(cardNumber);
+    }
+
+    @Benchmark
+    public Long decryptScan() {
+        List<Object[]> rows = jdbcTemplate.query("SELECT id, card_number_encrypted FROM cards ORDER BY id",
+                (rs, rowNum) -> new Object[]{rs.getLong(1), rs.getString(2)});
+        for (Object[] row : rows) {
+            if (encryptionUtil.decrypt((String) row[1]).equals(cardNumber)) {
+                return (Long) row[0];
+            }
+        }
+        return null;
+    }
+}
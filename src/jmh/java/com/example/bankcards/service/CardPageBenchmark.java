@@ -0,0 +1,92 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.BenchmarkContext;
+import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.CursorPageDto;
+import com.example.bankcards.dto.PageDto;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.util.PageCursorUtil;
+import com.example.bankcards.util.SqlStatementCounter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Глубокие страницы списка карт: offset-пагинация (Page + count(*)) против keyset-курсора.
+ * Перед замером проверяется бюджет SQL-запросов на страницу.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CardPageBenchmark {
+
+    private static final int CARDS = 20_000;
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"10", "900"})
+    private int pageNumber;
+
+    private ConfigurableApplicationContext context;
+    private CardService cardService;
+    private String cursor;
+    private Long userId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        cardService = context.getBean(CardService.class);
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        User user = context.getBean(UserRepository.class).save(User.builder()
+                .username("page-user")
+                .password("page")
+                .role(Role.USER)
+                .build());
+
+        userId = user.getId();
+        BenchmarkContext.insertCards(context, userId, CARDS);
+
+        Long lastIdBeforePage = jdbcTemplate.queryForObject(
+                "SELECT id FROM cards ORDER BY id LIMIT 1 OFFSET ?", Long.class, pageNumber * PAGE_SIZE - 1);
+        cursor = PageCursorUtil.encode(lastIdBeforePage);
+
+        // Бюджет запросов: курсорная страница — один SELECT, offset-страница — SELECT + count(*)
+        SqlStatementCounter.assertMaxStatements(1, () -> cardService.getAllCardsByCursor(cursor, PAGE_SIZE, false));
+        SqlStatementCounter.assertMaxStatements(1, () -> cardService.getUserCardsByCursor(userId, cursor, PAGE_SIZE, false));
+        SqlStatementCounter.assertMaxStatements(2, () -> cardService.getAllCards(PageRequest.of(pageNumber, PAGE_SIZE)));
+        SqlStatementCounter.assertMaxStatements(2, () -> cardService.getUserCards(userId, PageRequest.of(pageNumber, PAGE_SIZE)));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public PageDto<CardDto> offsetPage() {
+        return cardService.getAllCards(PageRequest.of(pageNumber, PAGE_SIZE));
+    }
+
+    @Benchmark
+    public CursorPageDto<CardDto> cursorPage() {
+        return cardService.getAllCardsByCursor(cursor, PAGE_SIZE, false);
+    }
+
+    @Benchmark
+    public PageDto<CardDto> userOffsetPage() {
+        return cardService.getUserCards(userId, PageRequest.of(pageNumber, PAGE_SIZE));
+    }
+
+    @Benchmark
+    public CursorPageDto<CardDto> userCursorPage() {
+        return cardService.getUserCardsByCursor(userId, cursor, PAGE_SIZE, false);
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.BenchmarkContext;
+import com.example.bankcards.dto.CardTransactionDto;
+import com.example.bankcards.dto.CursorPageDto;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.util.PageCursorUtil;
+import com.example.bankcards.util.SqlStatementCounter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Выписка по карте с большой историей: первая страница против страницы глубоко в истории.
+ * При keyset-пагинации по (created_at, id) время страницы не должно зависеть от глубины.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CardStatementBenchmark {
+
+    private static final int CARDS = 10;
+    private static final int ROWS_PER_CARD = 50_000;
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"0", "40000"})
+    private int depth;
+
+    private ConfigurableApplicationContext context;
+    private CardService cardService;
+    private User user;
+    private long cardId;
+    private String cursor;
+    private LocalDate from;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        cardService = context.getBean(CardService.class);
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        user = context.getBean(UserRepository.class).save(User.builder()
+                .username("statement-user")
+                .password("statement")
+                .role(Role.USER)
+                .build());
+        BenchmarkContext.insertCards(context, user.getId(), CARDS);
+        cardId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM cards", Long.class);
+
+        // История за ~2 года по всем картам вперемешку, каждая операция — через минуту после предыдущей
+        LocalDateTime start = LocalDateTime.now().minusMinutes((long) CARDS * ROWS_PER_CARD);
+        from = start.toLocalDate();
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO card_transactions (card_id, counterparty_card_id, type, amount, created_at) " +
+                        "VALUES (?, NULL, 'TRANSFER_IN', 1.00, ?)",
+                IntStream.range(0, CARDS * ROWS_PER_CARD).boxed().toList(), 5000,
+                (ps, i) -> {
+                    ps.setLong(1, cardId + i % CARDS);
+                    ps.setTimestamp(2, Timestamp.valueOf(start.plusMinutes(i)));
+                });
+
+        if (depth > 0) {
+            Map<String, Object> last = jdbcTemplate.queryForMap(
+                    "SELECT id, created_at FROM card_transactions WHERE card_id = ? " +
+                            "ORDER BY created_at DESC, id DESC LIMIT 1 OFFSET ?", cardId, depth - 1);
+            cursor = PageCursorUtil.encode(((Timestamp) last.get("created_at")).toLocalDateTime(),
+                    ((Number) last.get("id")).longValue());
+        }
+
+        // Бюджет запросов: проекция карты (при промахе кэша) и одна выборка из журнала
+        SqlStatementCounter.assertMaxStatements(2, () -> cardService.getCardStatement(cardId, from, null, cursor, PAGE_SIZE, user));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public CursorPageDto<CardTransactionDto> statementPage() {
+        return cardService.getCardStatement(cardId, from, null, cursor, PAGE_SIZE, user);
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.BenchmarkContext;
+import com.example.bankcards.dto.CardCreateRequestDto;
+import com.example.bankcards.dto.CardTransferRequestDto;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.InsufficientFundsException;
+import com.example.bankcards.repository.UserRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Стресс-бенчмарк переводов под конкуренцией: все потоки переводят деньги между небольшим
+ * набором «горячих» карт одного пользователя в случайных направлениях.
+ * После каждой итерации проверяется инвариант — суммарный баланс карт не меняется.
+ * Масштабирование видно по результатам методов с разным числом потоков.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConcurrentTransferBenchmark {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+
+    @Param({"4"})
+    private int hotCards;
+
+    private ConfigurableApplicationContext context;
+    private CardService cardService;
+    private JdbcTemplate jdbcTemplate;
+    private User user;
+    private long[] cardIds;
+    private BigDecimal expectedTotal;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        cardService = context.getBean(CardService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        user = context.getBean(UserRepository.class).save(User.builder()
+                .username("stress-user")
+                .password("stress")
+                .role(Role.USER)
+                .build());
+
+        cardIds = new long[hotCards];
+        for (int i = 0; i < hotCards; i++) {
+            cardIds[i] = cardService.createCard(CardCreateRequestDto.builder()
+                    .userId(user.getId())
+                    .cardNumber(String.format("4276%012d", i))
+                    .expiryDate(LocalDate.now().plusYears(3))
+                    .balance(new BigDecimal("1000.00"))
+                    .build()).getId();
+        }
+        expectedTotal = totalBalance();
+    }
+
+    @TearDown(Level.Iteration)
+    public void checkInvariant() {
+        BigDecimal actual = totalBalance();
+        if (actual.compareTo(expectedTotal) != 0) {
+            throw new IllegalStateException("Total balance changed: expected " + expectedTotal + ", got " + actual);
+        }
+        Integer negative = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM cards WHERE user_id = ? AND balance < 0", Integer.class, user.getId());
+        if (negative != null && negative > 0) {
+            throw new IllegalStateException(negative + " cards went below zero");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void transfer1Thread() {
+        transfer();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void transfer4Threads() {
+        transfer();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public void transfer16Threads() {
+        transfer();
+    }
+
+    private void transfer() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int from = random.nextInt(hotCards);
+        int to = (from + 1 + random.nextInt(hotCards - 1)) % hotCards;
+        try {
+            cardService.transferMoney(new CardTransferRequestDto(cardIds[from], cardIds[to], AMOUNT), user);
+        } catch (InsufficientFundsException ignored) {
+            // Допустимый исход при случайных направлениях — карта временно опустела
+        }
+    }
+
+    private BigDecimal totalBalance() {
+        return jdbcTemplate.queryForObject(
+                "SELECT SUM(balance) FROM cards WHERE user_id = ?", BigDecimal.class, user.getId());
+    }
+}
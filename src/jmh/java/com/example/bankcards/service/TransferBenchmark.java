@@ -0,0 +1,75 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.BenchmarkContext;
+import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.CardCreateRequestDto;
+import com.example.bankcards.dto.CardTransferRequestDto;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.UserRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Перевод между картами через CardService на встроенной БД (H2): полный путь
+ * сервис → репозиторий → транзакция.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransferBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private CardService cardService;
+    private User user;
+    private CardTransferRequestDto forward;
+    private CardTransferRequestDto backward;
+    private boolean flip;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        cardService = context.getBean(CardService.class);
+
+        user = context.getBean(UserRepository.class).save(User.builder()
+                .username("bench-user")
+                .password("bench")
+                .role(Role.USER)
+                .build());
+
+        CardDto first = createCard("4276380000000001");
+        CardDto second = createCard("4276380000000002");
+
+        BigDecimal amount = new BigDecimal("1.00");
+        forward = new CardTransferRequestDto(first.getId(), second.getId(), amount);
+        backward = new CardTransferRequestDto(second.getId(), first.getId(), amount);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void transferMoney() {
+        // Чередуем направление, чтобы баланс не уходил в ноль
+        flip = !flip;
+        cardService.transferMoney(flip ? forward : backward, user);
+    }
+
+    private CardDto createCard(String cardNumber) {
+        return cardService.createCard(CardCreateRequestDto.builder()
+                .userId(user.getId())
+                .cardNumber(cardNumber)
+                .expiryDate(LocalDate.now().plusYears(3))
+                .balance(new BigDecimal("1000000.00"))
+                .build());
+    }
+}
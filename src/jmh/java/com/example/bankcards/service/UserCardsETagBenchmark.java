@@ -0,0 +1,121 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.BenchmarkContext;
+import com.example.bankcards.dto.CardCreateRequestDto;
+import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.CardTransferRequestDto;
+import com.example.bankcards.dto.PageDto;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.UserRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Опрос GET /api/cards/my без изменений: проверка ETag (один агрегирующий запрос)
+ * против загрузки и сериализации страницы карт. Перед замером проверяется, что ETag
+ * не меняется без изменений своих карт и меняется при выпуске, переводе, блокировке и удалении карты.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserCardsETagBenchmark {
+
+    private static final int CARDS = 20;
+
+    private ConfigurableApplicationContext context;
+    private CardService cardService;
+    private ObjectMapper objectMapper;
+    private JdbcTemplate jdbcTemplate;
+    private Long userId;
+    private Long otherCardId;
+    private final Pageable pageable = PageRequest.of(0, 10);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        cardService = context.getBean(CardService.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        UserRepository userRepository = context.getBean(UserRepository.class);
+
+        User user = userRepository.save(User.builder().username("polling-user").password("x").role(Role.USER).build());
+        User other = userRepository.save(User.builder().username("other-user").password("x").role(Role.USER).build());
+        userId = user.getId();
+        BenchmarkContext.insertCards(context, userId, CARDS);
+        BenchmarkContext.insertCards(context, other.getId(), 1);
+        otherCardId = jdbcTemplate.queryForObject("SELECT id FROM cards WHERE user_id = ?", Long.class, other.getId());
+        List<Long> cardIds = jdbcTemplate.queryForList(
+                "SELECT id FROM cards WHERE user_id = ? ORDER BY id", Long.class, userId);
+
+        expectUnchanged("no changes", () -> { });
+        expectUnchanged("another user's card update", this::touch);
+        expectChanged("card issue", () -> cardService.createCard(CardCreateRequestDto.builder()
+                .userId(userId)
+                .cardNumber("5300000000000001")
+                .expiryDate(LocalDate.now().plusYears(3))
+                .balance(new BigDecimal("10.00"))
+                .build()));
+        expectChanged("transfer", () -> cardService.transferMoney(CardTransferRequestDto.builder()
+                .fromCardId(cardIds.get(0))
+                .toCardId(cardIds.get(1))
+                .amount(new BigDecimal("1.00"))
+                .build(), user));
+        expectChanged("block", () -> cardService.blockCard(cardIds.get(2), user));
+        expectChanged("delete", () -> cardService.deleteCard(cardIds.get(3)));
+    }
+
+    private void expectChanged(String change, Runnable action) {
+        String before = cardService.getUserCardsETag(userId);
+        action.run();
+        if (before.equals(cardService.getUserCardsETag(userId))) {
+            throw new IllegalStateException("ETag did not change after " + change);
+        }
+    }
+
+    private void expectUnchanged(String change, Runnable action) {
+        String before = cardService.getUserCardsETag(userId);
+        action.run();
+        if (!before.equals(cardService.getUserCardsETag(userId))) {
+            throw new IllegalStateException("ETag changed after " + change);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * Меняет карту другого пользователя: без изменений в cards H2 вернул бы повторный результат запроса из кэша
+     */
+    private void touch() {
+        jdbcTemplate.update("UPDATE cards SET version = version + 1 WHERE id = ?", otherCardId);
+    }
+
+    @Benchmark
+    public String eTagCheck() {
+        touch();
+        return cardService.getUserCardsETag(userId);
+    }
+
+    @Benchmark
+    public byte[] fullPage() throws JsonProcessingException {
+        touch();
+        PageDto<CardDto> page = cardService.getUserCards(userId, pageable);
+        return objectMapper.writeValueAsBytes(page);
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.bankcards.util;
+
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пропускная способность шифрования/дешифрования номеров карт (AES-GCM).
+ * Методы legacy* воспроизводят прежнюю реализацию (Cipher.getInstance и new SecureRandom
+ * на каждый вызов) и служат точкой сравнения «до/после».
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CardEncryptionBenchmark {
+
+    private static final int BULK_SIZE = 100;
+
+    private CardEncryptionUtil encryptionUtil;
+    private String cardNumber;
+    private String encrypted;
+    private List<String> cardNumbers;
+    private List<String> encryptedNumbers;
+    private SecretKey legacyKey;
+
+    @Setup
+    public void setUp() throws Exception {
+        encryptionUtil = new CardEncryptionUtil();
+        cardNumber = "4276380012345678";
+        encrypted = encryptionUtil.encrypt(cardNumber);
+
+        cardNumbers = new ArrayList<>(BULK_SIZE);
+        for (int i = 0; i < BULK_SIZE; i++) {
+            cardNumbers.add(String.format("4276%012d", i));
+        }
+        encryptedNumbers = encryptionUtil.encryptAll(cardNumbers);
+
+        KeyGenerator keyGenerator = KeyGenerator.getInstance("AES");
+        keyGenerator.init(256);
+        legacyKey = keyGenerator.generateKey();
+    }
+
+    @Benchmark
+    public String encrypt() {
+        return encryptionUtil.encrypt(cardNumber);
+    }
+
+    @Benchmark
+    public String decrypt() {
+        return encryptionUtil.decrypt(encrypted);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String encryptContended() {
+        return encryptionUtil.encrypt(cardNumber);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BULK_SIZE)
+    public List<String> encryptAll() {
+        return encryptionUtil.encryptAll(cardNumbers);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BULK_SIZE)
+    public List<String> decryptAll() {
+        return encryptionUtil.decryptAll(encryptedNumbers);
+    }
+
+    @Benchmark
+    public String legacyEncrypt() throws Exception {
+        byte[] iv = new byte[12];
+        new SecureRandom().nextBytes(iv);
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, legacyKey, new GCMParameterSpec(128, iv));
+
+        byte[] encryptedBytes = cipher.doFinal(cardNumber.getBytes(StandardCharsets.UTF_8));
+        byte[] combined = new byte[iv.length + encryptedBytes.length];
+        System.arraycopy(iv, 0, combined, 0, iv.length);
+        System.arraycopy(encryptedBytes, 0, combined, iv.length, encryptedBytes.length);
+        return Base64.getEncoder().encodeToString(combined);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String legacyEncryptContended() throws Exception {
+        return legacyEncrypt();
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.bankcards.util;
+
+import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.PageDto;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.Status;
+import com.example.bankcards.entity.User;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Маскирование номера карты и маппинг Card → CardDto / Page → PageDto без обращения к БД.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CardMappingBenchmark {
+
+    @Param({"10", "100"})
+    private int pageSize;
+
+    private Card card;
+    private Page<Card> cardPage;
+
+    @Setup
+    public void setUp() {
+        User user = User.builder().id(1L).username("bench").build();
+        List<Card> cards = new ArrayList<>(pageSize);
+        for (long i = 1; i <= pageSize; i++) {
+            cards.add(Card.builder()
+                    .id(i)
+                    .user(user)
+                    .cardNumberEncrypted("encrypted")
+                    .cardMask("**** **** **** " + String.format("%04d", i))
+                    .expiryDate(LocalDate.now().plusYears(3))
+                    .status(Status.ACTIVE)
+                    .balance(BigDecimal.valueOf(1000 + i))
+                    .createdAt(LocalDateTime.now())
+                    .updatedAt(LocalDateTime.now())
+                    .build());
+        }
+        card = cards.get(0);
+        cardPage = new PageImpl<>(cards, PageRequest.of(3, pageSize), 10_000);
+    }
+
+    @Benchmark
+    public String maskCardNumber() {
+        return CardMappingUtil.maskCardNumber("4276380012345678");
+    }
+
+    @Benchmark
+    public CardDto toDto() {
+        return CardMappingUtil.toDto(card);
+    }
+
+    @Benchmark
+    public PageDto<CardDto> toPageDto() {
+        return CardMappingUtil.toPageDto(cardPage.map(CardMappingUtil::toDto));
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.bankcards.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Нагрузочный тест по HTTP с фиксированной частотой поступления запросов (открытая модель):
+ * запросы назначаются по расписанию независимо от того, успел ли ответить сервер, и выполняются
+ * пулом из {@code loadtest.clients} клиентов. Задержка считается от назначенного момента, а не от
+ * фактической отправки, поэтому ожидание свободного клиента при перегрузке тоже попадает в перцентили.
+ * <p>
+ * Результаты (пропускная способность, доля ошибок, p50/p99/p99.9) пишутся в {@code loadtest.result-file}
+ * в формате эталона и сравниваются с {@code loadtest-baseline.properties}: задержка больше эталона
+ * с допуском {@code loadtest.tolerance}, пропускная способность ниже или доля ошибок выше — код выхода 1.
+ */
+public final class LoadTest {
+
+    private static final String BASELINE = "loadtest-baseline.properties";
+    private static final double[] PERCENTILES = {50, 99, 99.9};
+    private static final String[] PERCENTILE_KEYS = {"p50", "p99", "p999"};
+
+    private LoadTest() {
+    }
+
+    /**
+     * Задержки и ошибки одной операции (или всех вместе) за время замера
+     */
+    private static final class OperationStats {
+        final Histogram latencyMicros = new ConcurrentHistogram(3);
+        final LongAdder errors = new LongAdder();
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+        System.out.printf("Load test: %d users x %d cards, %d req/s from %d clients, warmup %s, measurement %s, mix %s%n",
+                settings.users(), settings.cardsPerUser(), settings.rate(), settings.clients(),
+                settings.warmup(), settings.duration(), settings.workloadProperties().getProperty("mix"));
+
+        Properties result;
+        try (LoadTestEnvironment environment = LoadTestEnvironment.start(settings)) {
+            result = run(settings, new LoadTestClient(environment));
+        }
+
+        Path resultFile = Path.of(settings.resultFile());
+        Files.createDirectories(resultFile.toAbsolutePath().getParent());
+        try (OutputStream out = Files.newOutputStream(resultFile)) {
+            result.store(out, "Load test result; copy to src/loadtest/resources/" + BASELINE + " to accept as baseline");
+        }
+        System.out.println("Result written to " + resultFile.toAbsolutePath());
+
+        List<String> regressions = compareWithBaseline(settings, result);
+        if (!regressions.isEmpty()) {
+            regressions.forEach(regression -> System.out.println("REGRESSION: " + regression));
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+
+    private static Properties run(LoadTestSettings settings, LoadTestClient client) throws InterruptedException {
+        Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+        settings.mix().keySet().forEach(operation -> stats.put(operation, new OperationStats()));
+        OperationStats total = new OperationStats();
+        Map<String, LongAdder> failures = new ConcurrentHashMap<>();
+        Operation[] schedule = weightedSchedule(settings.mix());
+
+        long interval = TimeUnit.SECONDS.toNanos(1) / settings.rate();
+        long start = System.nanoTime();
+        long measurementStart = start + settings.warmup().toNanos();
+        long end = measurementStart + settings.duration().toNanos();
+
+        ExecutorService clients = Executors.newFixedThreadPool(settings.clients());
+        for (long intended = start; intended < end; intended += interval) {
+            long delay = intended - System.nanoTime();
+            if (delay > 0) {
+                LockSupport.parkNanos(delay);
+            }
+            Operation operation = schedule[ThreadLocalRandom.current().nextInt(schedule.length)];
+            long scheduledAt = intended;
+            clients.execute(() -> {
+                String outcome;
+                try {
+                    int status = client.execute(operation);
+                    outcome = status / 100 == 2 ? null : String.valueOf(status);
+                } catch (Exception e) {
+                    outcome = e.getClass().getSimpleName();
+                }
+                if (scheduledAt < measurementStart) {
+                    return;
+                }
+                long latencyMicros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - scheduledAt);
+                for (OperationStats target : List.of(stats.get(operation), total)) {
+                    target.latencyMicros.recordValue(latencyMicros);
+                    if (outcome != null) {
+                        target.errors.increment();
+                    }
+                }
+                if (outcome != null) {
+                    failures.computeIfAbsent(operation.key() + " " + outcome, key -> new LongAdder()).increment();
+                }
+            });
+        }
+        clients.shutdown();
+        if (!clients.awaitTermination(1, TimeUnit.MINUTES)) {
+            clients.shutdownNow();
+            throw new IllegalStateException("Requests did not complete within a minute after the schedule ended");
+        }
+        // Все запросы назначены до end, но последние ответы приходят позже: считаем по фактическому окончанию
+        double elapsedSeconds = (System.nanoTime() - measurementStart) / 1e9;
+
+        Properties result = settings.workloadProperties();
+        System.out.printf("%-10s %10s %10s %10s %10s %10s %10s%n",
+                "operation", "count", "errors", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        stats.forEach((operation, operationStats) -> report(result, operation.key(), operationStats));
+        report(result, "all", total);
+
+        long count = total.latencyMicros.getTotalCount();
+        double throughput = count / elapsedSeconds;
+        double errorRate = count == 0 ? 0 : (double) total.errors.sum() / count;
+        result.setProperty("throughput", String.format(Locale.ROOT, "%.1f", throughput));
+        result.setProperty("error-rate", String.format(Locale.ROOT, "%.4f", errorRate));
+        System.out.printf("Throughput: %.1f req/s (target %d), errors: %.2f%%%n", throughput, settings.rate(), errorRate * 100);
+        new TreeMap<>(failures).forEach((failure, failureCount) ->
+                System.out.printf("  failed %s: %d%n", failure, failureCount.sum()));
+        return result;
+    }
+
+    private static void report(Properties result, String name, OperationStats stats) {
+        Histogram histogram = stats.latencyMicros;
+        StringBuilder line = new StringBuilder(String.format("%-10s %10d %10d",
+                name, histogram.getTotalCount(), stats.errors.sum()));
+        for (int i = 0; i < PERCENTILES.length; i++) {
+            double millis = histogram.getValueAtPercentile(PERCENTILES[i]) / 1000.0;
+            result.setProperty(name + "." + PERCENTILE_KEYS[i] + ".ms", String.format(Locale.ROOT, "%.2f", millis));
+            line.append(String.format(" %10.2f", millis));
+        }
+        line.append(String.format(" %10.2f", histogram.getMaxValue() / 1000.0));
+        System.out.println(line);
+    }
+
+    /**
+     * Таблица операций, в которой каждая встречается столько раз, каков её вес: случайный индекс даёт нужную смесь
+     */
+    private static Operation[] weightedSchedule(Map<Operation, Integer> mix) {
+        List<Operation> schedule = new ArrayList<>();
+        mix.forEach((operation, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                schedule.add(operation);
+            }
+        });
+        return schedule.toArray(Operation[]::new);
+    }
+
+    private static List<String> compareWithBaseline(LoadTestSettings settings, Properties result) throws IOException {
+        Properties baseline = new Properties();
+        try (InputStream in = LoadTest.class.getClassLoader().getResourceAsStream(BASELINE)) {
+            if (in == null) {
+                System.out.println("No " + BASELINE + " on the classpath, nothing to compare with");
+                return List.of();
+            }
+            baseline.load(in);
+        }
+
+        Properties workload = settings.workloadProperties();
+        for (String key : workload.stringPropertyNames()) {
+            if (!workload.getProperty(key).equals(baseline.getProperty(key))) {
+                System.out.printf("Baseline was recorded with %s=%s, this run has %s=%s: comparison skipped%n",
+                        key, baseline.getProperty(key), key, workload.getProperty(key));
+                return List.of();
+            }
+        }
+
+        List<String> regressions = new ArrayList<>();
+        for (String key : new TreeSet<>(baseline.stringPropertyNames())) {
+            if (!result.containsKey(key) || workload.containsKey(key)) {
+                continue;
+            }
+            double expected = Double.parseDouble(baseline.getProperty(key));
+            double actual = Double.parseDouble(result.getProperty(key));
+            if (key.endsWith(".ms") && actual > expected * (1 + settings.tolerance())) {
+                regressions.add(String.format("%s = %.2f, baseline %.2f (+%.0f%% allowed)",
+                        key, actual, expected, settings.tolerance() * 100));
+            } else if (key.equals("throughput") && actual < expected * (1 - settings.tolerance())) {
+                regressions.add(String.format("throughput = %.1f req/s, baseline %.1f", actual, expected));
+            } else if (key.equals("error-rate") && actual > expected) {
+                regressions.add(String.format("error-rate = %.4f, baseline %.4f", actual, expected));
+            }
+        }
+        return regressions;
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.bankcards.loadtest;
+
+import com.example.bankcards.dto.CardCreateRequestDto;
+import com.example.bankcards.dto.CardTransferRequestDto;
+import com.example.bankcards.loadtest.LoadTestEnvironment.SeededUser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Выполняет одну операцию нагрузки по HTTP от имени случайного пользователя и возвращает статус ответа.
+ * Блокировка/активация чередуются по состоянию карты, поэтому у пользователя не бывает двух таких запросов сразу.
+ */
+final class LoadTestClient {
+
+    private static final BigDecimal TRANSFER_AMOUNT = new BigDecimal("0.01");
+    private static final BigDecimal NEW_CARD_BALANCE = new BigDecimal("100.00");
+    private static final long CARD_NUMBERS = 1_000_000_000_000_000L;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final ObjectMapper objectMapper;
+    private final String baseUrl;
+    private final List<SeededUser> users;
+    private final AtomicBoolean[] toggling;
+    private final boolean[] blocked;
+    // Номера выпускаемых карт уникальны в пределах прогона и, скорее всего, между прогонами на одной базе
+    private final AtomicLong nextCardNumber = new AtomicLong(new SecureRandom().nextLong(CARD_NUMBERS / 2));
+
+    LoadTestClient(LoadTestEnvironment environment) {
+        this.objectMapper = environment.getBean(ObjectMapper.class);
+        this.baseUrl = environment.baseUrl();
+        this.users = environment.users();
+        this.toggling = new AtomicBoolean[users.size()];
+        for (int i = 0; i < toggling.length; i++) {
+            toggling[i] = new AtomicBoolean();
+        }
+        this.blocked = new boolean[users.size()];
+    }
+
+    int execute(Operation operation) throws IOException, InterruptedException {
+        return switch (operation) {
+            case LIST -> list();
+            case TRANSFER -> transfer();
+            case TOGGLE -> toggle();
+            case CREATE -> create();
+        };
+    }
+
+    private int list() throws IOException, InterruptedException {
+        SeededUser user = randomUser();
+        return send(user, HttpRequest.newBuilder(uri("/api/cards/my?userId=" + user.id() + "&size=10")).GET());
+    }
+
+    private int transfer() throws IOException, InterruptedException {
+        SeededUser user = randomUser();
+        List<Long> cards = user.transferCardIds();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int from = random.nextInt(cards.size());
+        int to = (from + 1 + random.nextInt(cards.size() - 1)) % cards.size();
+        CardTransferRequestDto request = CardTransferRequestDto.builder()
+                .fromCardId(cards.get(from))
+                .toCardId(cards.get(to))
+                .amount(TRANSFER_AMOUNT)
+                .build();
+        return send(user, HttpRequest.newBuilder(uri("/api/cards/transfer")).POST(json(request)));
+    }
+
+    private int toggle() throws IOException, InterruptedException {
+        int index = ThreadLocalRandom.current().nextInt(users.size());
+        // Пользователь, чья карта уже блокируется/активируется, пропускается в пользу следующего
+        while (!toggling[index].compareAndSet(false, true)) {
+            index = (index + 1) % users.size();
+        }
+        try {
+            SeededUser user = users.get(index);
+            String action = blocked[index] ? "activate" : "block";
+            int status = send(user, HttpRequest.newBuilder(uri("/api/cards/" + user.toggleCardId() + "/" + action))
+                    .method("PATCH", HttpRequest.BodyPublishers.noBody()));
+            if (status == 200) {
+                blocked[index] = !blocked[index];
+            }
+            return status;
+        } finally {
+            toggling[index].set(false);
+        }
+    }
+
+    private int create() throws IOException, InterruptedException {
+        SeededUser user = randomUser();
+        CardCreateRequestDto request = CardCreateRequestDto.builder()
+                .userId(user.id())
+                .cardNumber(String.format("5%015d", nextCardNumber.getAndIncrement() % CARD_NUMBERS))
+                .expiryDate(LocalDate.now().plusYears(3))
+                .balance(NEW_CARD_BALANCE)
+                .build();
+        return send(user, HttpRequest.newBuilder(uri("/api/cards")).POST(json(request)));
+    }
+
+    private SeededUser randomUser() {
+        return users.get(ThreadLocalRandom.current().nextInt(users.size()));
+    }
+
+    private int send(SeededUser user, HttpRequest.Builder request) throws IOException, InterruptedException {
+        HttpRequest httpRequest = request
+                .header("Authorization", "Bearer " + user.token())
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(30))
+                .build();
+        return httpClient.send(httpRequest, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private HttpRequest.BodyPublisher json(Object body) throws JsonProcessingException {
+        return HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body));
+    }
+
+    private URI uri(String path) {
+        return URI.create(baseUrl + path);
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.bankcards.loadtest;
+
+import com.example.bankcards.BankRestApplication;
+import com.example.bankcards.security.JwtTokenProvider;
+import com.example.bankcards.service.CardBalanceSummaryService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.security.SecureRandom;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Приложение на случайном порту и данные для нагрузки: пользователи с картами и их токены.
+ * Логины получают уникальный для прогона префикс, поэтому внешнюю базу можно переиспользовать между прогонами.
+ */
+final class LoadTestEnvironment implements AutoCloseable {
+
+    /**
+     * Пользователь нагрузки: первая карта — для блокировки/активации, остальные — для переводов
+     */
+    record SeededUser(long id, String token, long toggleCardId, List<Long> transferCardIds) {
+    }
+
+    private final ConfigurableApplicationContext context;
+    private final String baseUrl;
+    private final List<SeededUser> users;
+
+    private LoadTestEnvironment(ConfigurableApplicationContext context, List<SeededUser> users) {
+        this.context = context;
+        this.baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+        this.users = users;
+    }
+
+    static LoadTestEnvironment start(LoadTestSettings settings) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(BankRestApplication.class)
+                .run(applicationArguments(settings).toArray(String[]::new));
+        try {
+            return new LoadTestEnvironment(context, seed(context, settings));
+        } catch (RuntimeException e) {
+            context.close();
+            throw e;
+        }
+    }
+
+    private static List<String> applicationArguments(LoadTestSettings settings) {
+        byte[] jwtKey = new byte[32];
+        new SecureRandom().nextBytes(jwtKey);
+
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--app.security.jwt.secret=" + Base64.getEncoder().encodeToString(jwtKey),
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--logging.level.org.springframework=WARN",
+                // Конфликты версий повторяются, ошибки пакетного UPDATE в лог не нужны
+                "--logging.level.org.hibernate.orm.jdbc.batch=off"));
+        if (settings.embeddedDatabase()) {
+            args.addAll(List.of(
+                    "--spring.datasource.url=jdbc:h2:mem:loadtest;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                    "--spring.datasource.username=sa",
+                    "--spring.datasource.password=",
+                    "--spring.datasource.driver-class-name=org.h2.Driver",
+                    "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"));
+        } else {
+            args.addAll(List.of(
+                    "--spring.datasource.url=" + settings.dbUrl(),
+                    "--spring.datasource.username=" + settings.dbUsername(),
+                    "--spring.datasource.password=" + settings.dbPassword()));
+        }
+        return args;
+    }
+
+    /**
+     * Пользователи и карты вставляются JDBC batch'ами, сводка по картам затем пересчитывается сверкой
+     */
+    private static List<SeededUser> seed(ConfigurableApplicationContext context, LoadTestSettings settings) {
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        JwtTokenProvider tokenProvider = context.getBean(JwtTokenProvider.class);
+        String password = context.getBean(PasswordEncoder.class).encode("loadtest");
+        String prefix = "loadtest-" + HexFormat.of().toHexDigits(new SecureRandom().nextInt()) + "-";
+
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO users (username, password, role) VALUES (?, ?, 'USER')",
+                IntStream.range(0, settings.users()).boxed().toList(), 1000,
+                (ps, i) -> {
+                    ps.setString(1, prefix + i);
+                    ps.setString(2, password);
+                });
+        Map<Long, String> usernames = new HashMap<>();
+        jdbcTemplate.query("SELECT id, username FROM users WHERE username LIKE ?",
+                rs -> {
+                    usernames.put(rs.getLong("id"), rs.getString("username"));
+                }, prefix + "%");
+
+        List<Long> userIds = usernames.keySet().stream().sorted().toList();
+        Date expiry = Date.valueOf(LocalDate.now().plusYears(3));
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO cards (user_id, card_number_encrypted, card_mask, card_last4, expiry_date, status, balance) " +
+                        "VALUES (?, 'encrypted', '**** **** **** 0000', '0000', ?, 'ACTIVE', 100.00)",
+                IntStream.range(0, userIds.size() * settings.cardsPerUser()).boxed().toList(), 1000,
+                (ps, i) -> {
+                    ps.setLong(1, userIds.get(i / settings.cardsPerUser()));
+                    ps.setDate(2, expiry);
+                });
+        Map<Long, List<Long>> cardIds = new HashMap<>();
+        jdbcTemplate.query("SELECT c.id, c.user_id FROM cards c JOIN users u ON u.id = c.user_id " +
+                        "WHERE u.username LIKE ? ORDER BY c.id",
+                rs -> {
+                    cardIds.computeIfAbsent(rs.getLong("user_id"), id -> new ArrayList<>()).add(rs.getLong("id"));
+                }, prefix + "%");
+        context.getBean(CardBalanceSummaryService.class).reconcile();
+
+        return userIds.stream()
+                .map(id -> {
+                    List<Long> cards = cardIds.get(id);
+                    return new SeededUser(id, tokenProvider.generateToken(usernames.get(id)),
+                            cards.get(0), List.copyOf(cards.subList(1, cards.size())));
+                })
+                .toList();
+    }
+
+    String baseUrl() {
+        return baseUrl;
+    }
+
+    List<SeededUser> users() {
+        return users;
+    }
+
+    <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
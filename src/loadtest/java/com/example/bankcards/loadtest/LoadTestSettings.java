@@ -0,0 +1,100 @@
+package com.example.bankcards.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Параметры прогона из системных свойств {@code loadtest.*} (значения по умолчанию — в профиле loadtest).
+ * Пустой {@code db-url} — встроенная H2 в режиме PostgreSQL, иначе указанная база (например, локальный PostgreSQL).
+ */
+record LoadTestSettings(
+        int users,
+        int cardsPerUser,
+        int rate,
+        int clients,
+        Duration warmup,
+        Duration duration,
+        Map<Operation, Integer> mix,
+        double tolerance,
+        String dbUrl,
+        String dbUsername,
+        String dbPassword,
+        String resultFile) {
+
+    static LoadTestSettings fromSystemProperties() {
+        LoadTestSettings settings = new LoadTestSettings(
+                Integer.getInteger("loadtest.users", 200),
+                Integer.getInteger("loadtest.cards-per-user", 5),
+                Integer.getInteger("loadtest.rate", 50),
+                Integer.getInteger("loadtest.clients", 32),
+                DurationStyle.detectAndParse(System.getProperty("loadtest.warmup", "45s")),
+                DurationStyle.detectAndParse(System.getProperty("loadtest.duration", "30s")),
+                parseMix(System.getProperty("loadtest.mix", "list:60,transfer:25,toggle:10,create:5")),
+                Double.parseDouble(System.getProperty("loadtest.tolerance", "0.5")),
+                System.getProperty("loadtest.db-url", ""),
+                System.getProperty("loadtest.db-username", ""),
+                System.getProperty("loadtest.db-password", ""),
+                System.getProperty("loadtest.result-file", "target/loadtest-result.properties"));
+
+        // Первая карта пользователя — для блокировки/активации, переводы идут между остальными
+        if (settings.cardsPerUser < 3) {
+            throw new IllegalArgumentException("loadtest.cards-per-user must be at least 3");
+        }
+        if (settings.rate <= 0 || settings.clients <= 0 || settings.users <= 0) {
+            throw new IllegalArgumentException("loadtest.rate, loadtest.clients and loadtest.users must be positive");
+        }
+        return settings;
+    }
+
+    boolean embeddedDatabase() {
+        return dbUrl.isBlank();
+    }
+
+    /**
+     * Параметры, от которых зависят результаты: сравнение с эталоном имеет смысл только при их совпадении
+     */
+    Properties workloadProperties() {
+        Properties properties = new Properties();
+        properties.setProperty("users", String.valueOf(users));
+        properties.setProperty("cards-per-user", String.valueOf(cardsPerUser));
+        properties.setProperty("rate", String.valueOf(rate));
+        properties.setProperty("clients", String.valueOf(clients));
+        properties.setProperty("mix", formatMix(mix));
+        properties.setProperty("database", embeddedDatabase() ? "h2" : dbUrl);
+        return properties;
+    }
+
+    private static Map<Operation, Integer> parseMix(String value) {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (String entry : value.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid loadtest.mix entry: " + entry);
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Negative weight in loadtest.mix: " + entry);
+            }
+            mix.put(Operation.fromName(parts[0].trim()), weight);
+        }
+        if (mix.values().stream().mapToInt(Integer::intValue).sum() == 0) {
+            throw new IllegalArgumentException("loadtest.mix has no operations");
+        }
+        return mix;
+    }
+
+    private static String formatMix(Map<Operation, Integer> mix) {
+        StringBuilder builder = new StringBuilder();
+        mix.forEach((operation, weight) -> {
+            if (!builder.isEmpty()) {
+                builder.append(',');
+            }
+            builder.append(operation.key()).append(':').append(weight);
+        });
+        return builder.toString();
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.bankcards.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Операции смешанной нагрузки
+ */
+enum Operation {
+
+    /**
+     * GET /api/cards/my — первая страница карт пользователя
+     */
+    LIST("list"),
+
+    /**
+     * POST /api/cards/transfer — перевод 0.01 между своими картами
+     */
+    TRANSFER("transfer"),
+
+    /**
+     * PATCH /api/cards/{id}/block или /activate — по очереди для отдельной карты пользователя
+     */
+    TOGGLE("toggle"),
+
+    /**
+     * POST /api/cards — выпуск карты с новым номером
+     */
+    CREATE("create");
+
+    private final String key;
+
+    Operation(String key) {
+        this.key = key;
+    }
+
+    String key() {
+        return key;
+    }
+
+    static Operation fromName(String key) {
+        return Arrays.stream(values())
+                .filter(operation -> operation.key.equals(key))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown operation in loadtest.mix: " + key));
+    }
+}
@@ -2,8 +2,10 @@ package com.example.bankcards;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.security.servlet.UserDetailsServiceAutoConfiguration;
 
-@SpringBootApplication
+// Пользователи аутентифицируются по JWT (см. SecurityConfig), пользователь по умолчанию со сгенерированным паролем не нужен
+@SpringBootApplication(exclude = UserDetailsServiceAutoConfiguration.class)
 public class BankRestApplication {
     public static void main(String[] args) {
         SpringApplication.run(BankRestApplication.class, args);
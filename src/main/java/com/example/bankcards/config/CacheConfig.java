@@ -0,0 +1,30 @@
+package com.example.bankcards.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Конфигурация кэша пользователей и карт.
+ * Кэш транзакционный: put/evict внутри транзакции применяются только после её коммита,
+ * поэтому откатившиеся изменения в кэш не попадают.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String USERS = "users";
+    public static final String CARDS = "cards";
+
+    @Bean
+    public CacheManager cacheManager(@Value("${app.cache.spec}") String spec) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(USERS, CARDS);
+        cacheManager.setCacheSpecification(spec);
+        cacheManager.setAllowNullValues(false);
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+}
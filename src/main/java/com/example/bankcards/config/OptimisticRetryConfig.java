@@ -0,0 +1,38 @@
+package com.example.bankcards.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+
+import java.time.Duration;
+
+/**
+ * Повтор методов {@link RetryOnConflict} — инфраструктурный advisor, как у @Transactional.
+ * Его порядок выше транзакционного: каждая попытка выполняется в новой транзакции,
+ * а конфликт, обнаруженный при коммите, уже виден повтору.
+ */
+@Configuration
+@Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+public class OptimisticRetryConfig {
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor optimisticRetryAdvisor(@Value("${app.cards.retry.max-attempts}") int maxAttempts,
+                                                 @Value("${app.cards.retry.initial-backoff}") Duration initialBackoff,
+                                                 @Value("${app.cards.retry.max-backoff}") Duration maxBackoff,
+                                                 ObjectProvider<MeterRegistry> meterRegistry) {
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(
+                AnnotationMatchingPointcut.forMethodAnnotation(RetryOnConflict.class),
+                new OptimisticRetryInterceptor(maxAttempts, initialBackoff, maxBackoff, meterRegistry));
+        advisor.setOrder(Ordered.LOWEST_PRECEDENCE - 1);
+        return advisor;
+    }
+}
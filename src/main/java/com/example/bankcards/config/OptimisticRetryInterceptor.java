@@ -0,0 +1,76 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.exception.ConcurrentCardUpdateException;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Повтор методов {@link RetryOnConflict} при конфликте параллельных изменений.
+ * Задержка перед повтором — случайная в пределах экспоненциально растущего окна (full jitter):
+ * потоки, столкнувшиеся на одной карте, не повторяют попытку одновременно и не сталкиваются снова.
+ */
+@Slf4j
+public class OptimisticRetryInterceptor implements MethodInterceptor {
+
+    private final int maxAttempts;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    public OptimisticRetryInterceptor(int maxAttempts, Duration initialBackoff, Duration maxBackoff,
+                                      ObjectProvider<MeterRegistry> meterRegistry) {
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffNanos = initialBackoff.toNanos();
+        this.maxBackoffNanos = maxBackoff.toNanos();
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            // Внешняя транзакция уже помечена на откат — повторять здесь бесполезно
+            return invocation.proceed();
+        }
+
+        String method = invocation.getMethod().getName();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return ((ProxyMethodInvocation) invocation).invocableClone().proceed();
+            } catch (OptimisticLockingFailureException | ConcurrentCardUpdateException e) {
+                MeterRegistry registry = meterRegistry.getObject();
+                registry.counter("bank.card.conflicts", "method", method).increment();
+                if (attempt >= maxAttempts) {
+                    registry.counter("bank.card.retries.exhausted", "method", method).increment();
+                    log.debug("{} still conflicts after {} attempts", method, attempt);
+                    throw e;
+                }
+                registry.counter("bank.card.retries", "method", method).increment();
+                backoff(attempt, e);
+            }
+        }
+    }
+
+    /**
+     * Пауза перед попыткой {@code attempt + 1}: случайная в [0, min(max, initial * 2^(attempt-1))]
+     */
+    private void backoff(int attempt, RuntimeException conflict) {
+        long window = Math.min(maxBackoffNanos, initialBackoffNanos << Math.min(attempt - 1, 20));
+        long pause = ThreadLocalRandom.current().nextLong(window + 1);
+        try {
+            TimeUnit.NANOSECONDS.sleep(pause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw conflict;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.bankcards.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Ограничение частоты изменяющих запросов к картам на пользователя (app.cards.rate-limit.enabled=true).
+ * Один клиент, засыпающий API переводами, получает 429 и не занимает соединения с БД, нужные остальным.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.cards.rate-limit", name = "enabled", havingValue = "true")
+public class RateLimitConfig {
+
+    @Bean
+    public UserRateLimiter userRateLimiter(@Value("${app.cards.rate-limit.capacity}") int capacity,
+                                           @Value("${app.cards.rate-limit.refill-per-second}") double refillPerSecond,
+                                           @Value("${app.cards.rate-limit.idle-timeout}") Duration idleTimeout,
+                                           @Value("${app.cards.rate-limit.max-users}") long maxUsers,
+                                           MeterRegistry meterRegistry) {
+        return new UserRateLimiter(capacity, refillPerSecond, idleTimeout, maxUsers, meterRegistry);
+    }
+}
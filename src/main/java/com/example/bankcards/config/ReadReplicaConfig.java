@@ -0,0 +1,69 @@
+package com.example.bankcards.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Чтение с реплики (app.db.replica.enabled=true).
+ * Единственный DataSource приложения — {@link LazyConnectionDataSourceProxy}: физическое соединение
+ * берётся при первом запросе, когда уже известно, read-only ли транзакция.
+ * Транзакции {@code @Transactional(readOnly = true)} получают соединение с реплики
+ * (или с основной БД в окне read-your-writes, см. {@link ReadYourWritesTracker}), остальные — с основной БД.
+ * Пулы основной БД и реплики не регистрируются бинами, чтобы прокси подсчёта запросов и контроль допуска
+ * оборачивали только общий DataSource и не срабатывали дважды; метрики пулов подключаются здесь.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.db.replica", name = "enabled", havingValue = "true")
+public class ReadReplicaConfig {
+
+    @Bean(destroyMethod = "close")
+    public ReplicaPools replicaPools(DataSourceProperties properties, Environment environment,
+                                     MeterRegistry meterRegistry) {
+        Binder binder = Binder.get(environment);
+
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        primary.setPoolName("primary");
+        primary.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+
+        DataSourceProperties replicaProperties = binder.bind("app.db.replica", DataSourceProperties.class)
+                .orElseThrow(() -> new IllegalStateException("app.db.replica.url is not configured"));
+        HikariDataSource replica = replicaProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        binder.bind("app.db.replica.hikari", Bindable.ofInstance(replica));
+        replica.setPoolName("replica");
+        replica.setReadOnly(true);
+        replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        return new ReplicaPools(primary, replica);
+    }
+
+    @Bean
+    public DataSource dataSource(ReplicaPools pools, ReadYourWritesTracker tracker, MeterRegistry meterRegistry) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(pools.primary());
+        dataSource.setReadOnlyDataSource(
+                new ReplicaRoutingDataSource(pools.primary(), pools.replica(), tracker, meterRegistry));
+        return dataSource;
+    }
+
+    /**
+     * Пулы основной БД и реплики; закрываются при остановке контекста
+     */
+    public record ReplicaPools(HikariDataSource primary, HikariDataSource replica) implements AutoCloseable {
+
+        @Override
+        public void close() {
+            replica.close();
+            primary.close();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.bankcards.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+/**
+ * Чтение своих записей при работе с репликой: пользователь, только что выполнивший перевод,
+ * в течение окна read-your-writes читает с основной БД, а не с отстающей реплики.
+ * Окно должно быть больше типичного отставания реплики. Учёт ведётся в памяти узла.
+ */
+@Component
+public class ReadYourWritesTracker {
+
+    private static final ThreadLocal<Boolean> PRIMARY_PINNED = new ThreadLocal<>();
+
+    private final Cache<Long, Boolean> recentWriters;
+
+    public ReadYourWritesTracker(@Value("${app.db.replica.read-your-writes-window}") Duration window) {
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(window)
+                .maximumSize(100_000)
+                .build();
+    }
+
+    /**
+     * Отмечает запись пользователя: окно read-your-writes начинается заново
+     */
+    public void recordWrite(Long userId) {
+        if (userId != null) {
+            recentWriters.put(userId, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Направляет чтения текущей транзакции на основную БД, если пользователь недавно писал.
+     * Вызывать в начале read-only метода, до первого запроса: соединение выбирается при первом запросе.
+     */
+    public void routeReadsFor(Long userId) {
+        if (userId == null || recentWriters.getIfPresent(userId) == null
+                || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        PRIMARY_PINNED.set(Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                PRIMARY_PINNED.remove();
+            }
+        });
+    }
+
+    /**
+     * @return true — read-only транзакция текущего потока должна читать с основной БД
+     */
+    public boolean isPrimaryPinned() {
+        return PRIMARY_PINNED.get() != null;
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.bankcards.config;
+
+import java.lang.annotation.*;
+
+/**
+ * Метод повторяется целиком, в новой транзакции, если она не зафиксировалась из-за конфликта версий
+ * (оптимистичная блокировка) или параллельного изменения карт. Параметры повтора — app.cards.retry.*.
+ * Повтор выполняется только на внешнем уровне: внутри уже открытой транзакции метод вызывается один раз.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RetryOnConflict {
+}
@@ -0,0 +1,12 @@
+package com.example.bankcards.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Включает фоновые задачи по расписанию (обслуживание таблиц и т.п.)
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
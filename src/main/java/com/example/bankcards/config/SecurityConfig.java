@@ -0,0 +1,71 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.security.JwtAuthenticationFilter;
+import com.example.bankcards.security.JwtPrincipalResolver;
+import jakarta.servlet.DispatcherType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+
+/**
+ * Stateless-аутентификация по JWT: без сессий, CSRF и формы входа.
+ * Токен выдаёт POST /api/auth/login, остальные запросы к API требуют заголовок Authorization: Bearer.
+ * Операции оператора доступны только роли ADMIN, остальное — любому аутентифицированному пользователю
+ * (доступ к чужим картам проверяют сервисы).
+ */
+@Configuration
+@EnableWebSecurity
+@RequiredArgsConstructor
+public class SecurityConfig {
+
+    private static final String ADMIN = Role.ADMIN.name();
+
+    private final JwtPrincipalResolver principalResolver;
+
+    @Bean
+    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+        http
+                .csrf(AbstractHttpConfigurer::disable)
+                .httpBasic(AbstractHttpConfigurer::disable)
+                .formLogin(AbstractHttpConfigurer::disable)
+                .logout(AbstractHttpConfigurer::disable)
+                .requestCache(AbstractHttpConfigurer::disable)
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .authorizeHttpRequests(requests -> requests
+                        // Завершение потоковых ответов (SSE, выгрузка) — повторный диспатч уже проверенного запроса без токена
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                        .requestMatchers(HttpMethod.POST, "/api/auth/login").permitAll()
+                        .requestMatchers("/actuator/health", "/actuator/info").permitAll()
+                        .requestMatchers("/v3/api-docs/**", "/swagger-ui/**", "/swagger-ui.html").permitAll()
+                        // Операции оператора: выпуск и удаление карт, просмотр всех карт, поиск, выгрузка, сверка
+                        .requestMatchers(HttpMethod.POST, "/api/cards", "/api/cards/lookup",
+                                "/api/cards/blind-index/backfill", "/api/cards/summary/reconcile").hasRole(ADMIN)
+                        .requestMatchers(HttpMethod.DELETE, "/api/cards/*").hasRole(ADMIN)
+                        .requestMatchers(HttpMethod.GET, "/api/cards", "/api/cards/cursor", "/api/cards/summary",
+                                "/api/cards/search", "/api/cards/export").hasRole(ADMIN)
+                        .requestMatchers("/api/cards/bulk", "/api/cards/bulk/**").hasRole(ADMIN)
+                        .requestMatchers("/api/users/**", "/api/cache/**").hasRole(ADMIN)
+                        .anyRequest().authenticated())
+                .exceptionHandling(exceptions -> exceptions
+                        .authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)))
+                .addFilterBefore(new JwtAuthenticationFilter(principalResolver), UsernamePasswordAuthenticationFilter.class);
+        return http.build();
+    }
+
+    @Bean
+    public PasswordEncoder passwordEncoder() {
+        return new BCryptPasswordEncoder();
+    }
+}
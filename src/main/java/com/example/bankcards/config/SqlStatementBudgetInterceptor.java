@@ -0,0 +1,71 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.util.SqlStatementCounter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Считает SQL-запросы и суммарное время БД на каждый HTTP-запрос.
+ * Публикует метрики bank.sql.statements / bank.sql.time с тегом uri и пишет предупреждение,
+ * если запрос превысил бюджет (типичный признак N+1).
+ * Для асинхронных ответов (SSE, потоковая выгрузка) область первого диспатча закрывается при уходе
+ * в асинхронный режим: afterCompletion для него не вызывается, и область осталась бы в потоке Tomcat.
+ */
+@Slf4j
+public class SqlStatementBudgetInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String SCOPE_ATTRIBUTE = SqlStatementBudgetInterceptor.class.getName() + ".scope";
+
+    private final MeterRegistry meterRegistry;
+    private final int statementBudget;
+
+    public SqlStatementBudgetInterceptor(MeterRegistry meterRegistry, int statementBudget) {
+        this.meterRegistry = meterRegistry;
+        this.statementBudget = statementBudget;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        request.setAttribute(SCOPE_ATTRIBUTE, SqlStatementCounter.start());
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getAttribute(SCOPE_ATTRIBUTE) instanceof SqlStatementCounter.Scope scope) {
+            scope.close();
+            // Повторный диспатч по завершении ответа откроет свою область
+            request.removeAttribute(SCOPE_ATTRIBUTE);
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (!(request.getAttribute(SCOPE_ATTRIBUTE) instanceof SqlStatementCounter.Scope scope)) {
+            return;
+        }
+        scope.close();
+
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+
+        DistributionSummary.builder("bank.sql.statements")
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(scope.getStatements());
+        meterRegistry.timer("bank.sql.time", "uri", uri)
+                .record(scope.getElapsed().toNanos(), TimeUnit.NANOSECONDS);
+
+        if (scope.getStatements() > statementBudget) {
+            log.warn("{} {} executed {} SQL statements (budget {})",
+                    request.getMethod(), uri, scope.getStatements(), statementBudget);
+        }
+    }
+}
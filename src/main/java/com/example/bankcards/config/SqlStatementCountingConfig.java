@@ -0,0 +1,54 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.util.SqlStatementCounter;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Оборачивает DataSource прокси, который учитывает каждый выполненный SQL-запрос
+ * (включая JDBC batch и JdbcTemplate) в {@link SqlStatementCounter} текущего потока.
+ * Заменяет show-sql/TRACE-логирование как способ видеть запросы под нагрузкой.
+ */
+@Configuration
+public class SqlStatementCountingConfig {
+
+    private static final String START_NANOS = "startNanos";
+
+    @Bean
+    public static BeanPostProcessor sqlStatementCountingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource) {
+                    return ProxyDataSourceBuilder.create(dataSource)
+                            .name(beanName)
+                            .listener(new CountingListener())
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+
+    private static class CountingListener implements QueryExecutionListener {
+
+        @Override
+        public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            execInfo.addCustomValue(START_NANOS, System.nanoTime());
+        }
+
+        @Override
+        public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            Long start = execInfo.getCustomValue(START_NANOS, Long.class);
+            SqlStatementCounter.record(start != null ? System.nanoTime() - start : 0L);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.exception.RateLimitExceededException;
+import com.example.bankcards.security.AuthenticatedUser;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ограничивает частоту изменяющих запросов (не GET) каждого пользователя.
+ * Срабатывает до вызова контроллера: отклонённый запрос не открывает транзакцию
+ * и не занимает соединение с БД.
+ */
+public class UserRateLimitInterceptor implements HandlerInterceptor {
+
+    private final UserRateLimiter rateLimiter;
+
+    public UserRateLimitInterceptor(UserRateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        String method = request.getMethod();
+        if (HttpMethod.GET.matches(method) || HttpMethod.HEAD.matches(method) || HttpMethod.OPTIONS.matches(method)) {
+            return true;
+        }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof AuthenticatedUser user)) {
+            return true;
+        }
+        long waitNanos = rateLimiter.tryAcquire(user.id());
+        if (waitNanos > 0) {
+            long retryAfterSeconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+            throw new RateLimitExceededException("Too many requests, retry later", retryAfterSeconds);
+        }
+        return true;
+    }
+}
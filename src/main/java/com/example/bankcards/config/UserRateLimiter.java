@@ -0,0 +1,79 @@
+package com.example.bankcards.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ограничитель частоты запросов на пользователя: token bucket ёмкостью capacity,
+ * пополняемый со скоростью refillPerSecond.
+ * <p>
+ * Ведро хранится одним {@link AtomicLong} — теоретическим временем прихода следующего запроса
+ * (алгоритм GCRA, эквивалентный token bucket): решение принимается одним CAS без блокировок,
+ * вёдра разных пользователей не делят общих данных. Ведро, простаивавшее дольше idleTimeout,
+ * удаляется; idleTimeout не меньше времени полного пополнения, поэтому удалённое ведро
+ * было бы полным и пересоздание ничего не меняет.
+ */
+public class UserRateLimiter {
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final Cache<Long, AtomicLong> buckets;
+    private final Counter allowedCounter;
+    private final Counter rejectedCounter;
+
+    public UserRateLimiter(int capacity, double refillPerSecond, Duration idleTimeout, long maxUsers,
+                           MeterRegistry meterRegistry) {
+        if (capacity < 1 || refillPerSecond <= 0) {
+            throw new IllegalArgumentException("Rate limit capacity and refill rate must be positive");
+        }
+        this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / refillPerSecond));
+        this.burstNanos = intervalNanos * capacity;
+        Duration fullRefill = Duration.ofNanos(burstNanos);
+        this.buckets = Caffeine.newBuilder()
+                .expireAfterAccess(idleTimeout.compareTo(fullRefill) > 0 ? idleTimeout : fullRefill)
+                .maximumSize(maxUsers)
+                .build();
+        this.allowedCounter = meterRegistry.counter("bank.ratelimit.requests", "outcome", "allowed");
+        this.rejectedCounter = meterRegistry.counter("bank.ratelimit.requests", "outcome", "rejected");
+        Gauge.builder("bank.ratelimit.buckets", buckets, Cache::estimatedSize).register(meterRegistry);
+    }
+
+    /**
+     * Пытается взять токен из ведра пользователя
+     *
+     * @return 0 — запрос разрешён; иначе — через сколько наносекунд появится токен
+     */
+    public long tryAcquire(long userId) {
+        long now = System.nanoTime();
+        AtomicLong bucket = buckets.get(userId, id -> new AtomicLong(now));
+        while (true) {
+            long arrival = bucket.get();
+            // Время прихода в прошлом — ведро полное, отсчёт идёт от текущего момента
+            long next = (arrival - now < 0 ? now : arrival) + intervalNanos;
+            long overflow = next - now - burstNanos;
+            if (overflow > 0) {
+                rejectedCounter.increment();
+                return overflow;
+            }
+            if (bucket.compareAndSet(arrival, next)) {
+                allowedCounter.increment();
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Число вёдер после удаления простаивающих
+     */
+    public long activeBuckets() {
+        buckets.cleanUp();
+        return buckets.estimatedSize();
+    }
+}
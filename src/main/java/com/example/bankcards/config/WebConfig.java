@@ -0,0 +1,38 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.security.CurrentUserArgumentResolver;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+@RequiredArgsConstructor
+public class WebConfig implements WebMvcConfigurer {
+
+    private final MeterRegistry meterRegistry;
+    private final ObjectProvider<UserRateLimiter> rateLimiter;
+
+    @Value("${app.sql.statement-budget}")
+    private int statementBudget;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // Первым: отклонённый запрос не доходит до остальных интерцепторов и контроллера
+        rateLimiter.ifAvailable(limiter -> registry.addInterceptor(new UserRateLimitInterceptor(limiter))
+                .addPathPatterns("/api/cards/**"));
+        registry.addInterceptor(new SqlStatementBudgetInterceptor(meterRegistry, statementBudget))
+                .addPathPatterns("/api/**");
+    }
+
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        resolvers.add(new CurrentUserArgumentResolver());
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.bankcards.controller;
+
+import com.example.bankcards.dto.AuthTokenDto;
+import com.example.bankcards.dto.LoginRequestDto;
+import com.example.bankcards.service.AuthService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/auth")
+@RequiredArgsConstructor
+public class AuthController {
+
+    private final AuthService authService;
+
+    /**
+     * Вход по логину и паролю (доступен без токена)
+     */
+    @PostMapping("/login")
+    public ResponseEntity<AuthTokenDto> login(@Valid @RequestBody LoginRequestDto request) {
+        AuthTokenDto token = authService.login(request);
+        return ResponseEntity.ok(token);
+    }
+}
@@ -2,15 +2,39 @@ package com.example.bankcards.controller;
 
 import com.example.bankcards.dto.*;
 import com.example.bankcards.entity.*;
+import com.example.bankcards.exception.UserNotFoundException;
+import com.example.bankcards.service.CardBalanceSummaryService;
+import com.example.bankcards.service.CardBlindIndexBackfillService;
+import com.example.bankcards.service.CardEventStreamService;
+import com.example.bankcards.service.CardExportService;
+import com.example.bankcards.service.CardIssuanceService;
 import com.example.bankcards.service.CardService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/cards")
@@ -18,41 +42,180 @@ import jakarta.validation.Valid;
 @Validated
 public class CardController {
 
+    /**
+     * Клиент хранит ответ и перепроверяет его при каждом запросе; общие кэши ответ не хранят
+     */
+    static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
     private final CardService cardService;
+    private final CardExportService cardExportService;
+    private final CardBlindIndexBackfillService cardBlindIndexBackfillService;
+    private final CardIssuanceService cardIssuanceService;
+    private final CardBalanceSummaryService cardBalanceSummaryService;
+    private final CardEventStreamService cardEventStreamService;
 
     /**
      * Создание карты (только ADMIN)
      */
     @PostMapping
     public ResponseEntity<CardDto> createCard(@Valid @RequestBody CardCreateRequestDto request) {
-        // Позже: проверка роли через @PreAuthorize("hasRole('ADMIN')")
         CardDto cardDto = cardService.createCard(request);
         return ResponseEntity.status(201).body(cardDto);
     }
 
     /**
-     * Получение всех карт пользователя (для USER и ADMIN)
+     * Получение карты по ID (для владельца карты)
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<CardDto> getCard(@PathVariable Long id, User currentUser) {
+        CardDto cardDto = cardService.getCard(id, currentUser);
+        return ResponseEntity.ok(cardDto);
+    }
+
+    /**
+     * Пакетный выпуск карт (только ADMIN): задача выполняется в фоне,
+     * ошибки проверки фиксируются по строкам в прогрессе задачи
+     */
+    @PostMapping("/bulk")
+    public ResponseEntity<BulkIssueJobDto> issueCards(
+            @RequestBody @NotEmpty List<CardCreateRequestDto> requests) {
+        BulkIssueJobDto job = cardIssuanceService.startJob(requests);
+        return ResponseEntity.accepted().body(job);
+    }
+
+    /**
+     * Пакетный выпуск карт из CSV-файла (только ADMIN)
+     */
+    @PostMapping(value = "/bulk/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<BulkIssueJobDto> importCards(@RequestParam("file") MultipartFile file) throws IOException {
+        try (InputStream csv = file.getInputStream()) {
+            BulkIssueJobDto job = cardIssuanceService.startImport(csv);
+            return ResponseEntity.accepted().body(job);
+        }
+    }
+
+    /**
+     * Прогресс пакетного выпуска карт (только ADMIN)
+     */
+    @GetMapping("/bulk/{jobId}")
+    public ResponseEntity<BulkIssueJobDto> getIssueJob(@PathVariable String jobId) {
+        BulkIssueJobDto job = cardIssuanceService.getJob(jobId);
+        return ResponseEntity.ok(job);
+    }
+
+    /**
+     * Поиск карты по номеру (для ADMIN). Номер передаётся в теле, чтобы не попадать в логи URL
+     */
+    @PostMapping("/lookup")
+    public ResponseEntity<CardDto> findCardByNumber(@Valid @RequestBody CardLookupRequestDto request) {
+        CardDto cardDto = cardService.findCardByNumber(request.getCardNumber());
+        return ResponseEntity.ok(cardDto);
+    }
+
+    /**
+     * Заполнение слепого индекса номеров у существующих карт (для ADMIN)
+     */
+    @PostMapping("/blind-index/backfill")
+    public ResponseEntity<BlindIndexBackfillResultDto> backfillBlindIndex() {
+        BlindIndexBackfillResultDto result = cardBlindIndexBackfillService.backfill();
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Выписка по карте за период с курсорной пагинацией (для владельца карты)
+     */
+    @GetMapping("/{id}/transactions")
+    public ResponseEntity<CursorPageDto<CardTransactionDto>> getCardStatement(
+            @PathVariable Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") @Min(1) @Max(100) int size,
+            User currentUser) {
+        CursorPageDto<CardTransactionDto> statement = cardService.getCardStatement(id, from, to, cursor, size, currentUser);
+        return ResponseEntity.ok(statement);
+    }
+
+    /**
+     * Получение всех карт пользователя (для USER и ADMIN).
+     * Поддерживает If-None-Match: если карты не менялись, отвечает 304 без загрузки страницы
      */
     @GetMapping("/my")
     public ResponseEntity<PageDto<CardDto>> getUserCards(
             @RequestParam Long userId,
-            @PageableDefault(size = 10) Pageable pageable) {
-        // Позже: проверим, что userId == currentUser.getId() для USER
+            @PageableDefault(size = 10) Pageable pageable,
+            WebRequest webRequest,
+            User currentUser) {
+        checkSelfOrAdmin(userId, currentUser);
+        String eTag = cardService.getUserCardsETag(userId);
+        if (webRequest.checkNotModified(eTag)) {
+            // ETag и 304 уже выставлены checkNotModified
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(REVALIDATE).build();
+        }
         PageDto<CardDto> cards = cardService.getUserCards(userId, pageable);
+        return ResponseEntity.ok().eTag(eTag).cacheControl(REVALIDATE).body(cards);
+    }
+
+    /**
+     * Поток событий по картам текущего пользователя (SSE): выпуск, переводы, блокировка, активация,
+     * истечение срока, удаление.
+     * При переподключении с Last-Event-ID пропущенные события досылаются, поэтому опрашивать /my не нужно
+     */
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamCardEvents(
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId,
+            User currentUser) {
+        return cardEventStreamService.subscribe(currentUser.getId(), lastEventId);
+    }
+
+    /**
+     * Получение карт пользователя с курсорной пагинацией (для USER и ADMIN)
+     */
+    @GetMapping("/my/cursor")
+    public ResponseEntity<CursorPageDto<CardDto>> getUserCardsByCursor(
+            @RequestParam Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") @Min(1) @Max(100) int size,
+            @RequestParam(defaultValue = "false") boolean withTotal,
+            User currentUser) {
+        checkSelfOrAdmin(userId, currentUser);
+        CursorPageDto<CardDto> cards = cardService.getUserCardsByCursor(userId, cursor, size, withTotal);
         return ResponseEntity.ok(cards);
     }
 
+    /**
+     * Число карт и сумма балансов пользователя по статусам (для USER и ADMIN)
+     */
+    @GetMapping("/my/summary")
+    public ResponseEntity<BalanceSummaryDto> getUserSummary(@RequestParam Long userId, User currentUser) {
+        checkSelfOrAdmin(userId, currentUser);
+        BalanceSummaryDto summary = cardBalanceSummaryService.getUserSummary(userId);
+        return ResponseEntity.ok(summary);
+    }
+
     /**
      * Перевод между картами (для USER)
      */
     @PostMapping("/transfer")
     public ResponseEntity<Void> transferMoney(
             @Valid @RequestBody CardTransferRequestDto request,
-            User currentUser) { // Позже: будет подставляться автоматически
+            User currentUser) {
         cardService.transferMoney(request, currentUser);
         return ResponseEntity.ok().build();
     }
 
+    /**
+     * Пакетный перевод между картами (для USER): одна транзакция на весь пакет,
+     * результат возвращается по каждому переводу
+     */
+    @PostMapping("/transfer/batch")
+    public ResponseEntity<List<TransferResultDto>> transferMoneyBatch(
+            @RequestBody @NotEmpty @Size(max = 1000) List<@Valid CardTransferRequestDto> requests,
+            User currentUser) {
+        List<TransferResultDto> results = cardService.transferMoneyBatch(requests, currentUser);
+        return ResponseEntity.ok(results);
+    }
+
     /**
      * Блокировка карты (для USER и ADMIN)
      */
@@ -89,4 +252,75 @@ public class CardController {
         PageDto<CardDto> cards = cardService.getAllCards(pageable);
         return ResponseEntity.ok(cards);
     }
+
+    /**
+     * Получение всех карт в системе с курсорной пагинацией (для ADMIN)
+     */
+    @GetMapping("/cursor")
+    public ResponseEntity<CursorPageDto<CardDto>> getAllCardsByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") @Min(1) @Max(100) int size,
+            @RequestParam(defaultValue = "false") boolean withTotal) {
+        CursorPageDto<CardDto> cards = cardService.getAllCardsByCursor(cursor, size, withTotal);
+        return ResponseEntity.ok(cards);
+    }
+
+    /**
+     * Число карт и сумма балансов по всей системе (для ADMIN)
+     */
+    @GetMapping("/summary")
+    public ResponseEntity<BalanceSummaryDto> getSystemSummary() {
+        BalanceSummaryDto summary = cardBalanceSummaryService.getSystemSummary();
+        return ResponseEntity.ok(summary);
+    }
+
+    /**
+     * Сверка сводки по картам с фактическими данными (для ADMIN)
+     */
+    @PostMapping("/summary/reconcile")
+    public ResponseEntity<BalanceReconciliationResultDto> reconcileSummary() {
+        BalanceReconciliationResultDto result = cardBalanceSummaryService.reconcile();
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Поиск карт по владельцу, статусу, сроку действия и последним 4 цифрам (для ADMIN)
+     */
+    @GetMapping("/search")
+    public ResponseEntity<CursorPageDto<CardDto>> searchCards(
+            @Valid CardSearchFilter filter,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") @Min(1) @Max(100) int size,
+            @RequestParam(defaultValue = "false") boolean withTotal) {
+        CursorPageDto<CardDto> cards = cardService.searchCards(filter, cursor, size, withTotal);
+        return ResponseEntity.ok(cards);
+    }
+
+    /**
+     * Потоковая выгрузка всех карт в NDJSON или CSV (для ADMIN)
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportCards(
+            @RequestParam(defaultValue = "NDJSON") ExportFormat format) {
+        MediaType mediaType = format == ExportFormat.CSV
+                ? new MediaType("text", "csv")
+                : MediaType.APPLICATION_NDJSON;
+        String fileName = "cards." + (format == ExportFormat.CSV ? "csv" : "ndjson");
+
+        StreamingResponseBody body = outputStream -> cardExportService.exportCards(format, outputStream);
+        return ResponseEntity.ok()
+                .contentType(mediaType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .body(body);
+    }
+
+    /**
+     * USER видит только свои карты, ADMIN — карты любого пользователя.
+     * Чужой пользователь неотличим от несуществующего
+     */
+    private static void checkSelfOrAdmin(Long userId, User currentUser) {
+        if (currentUser.getRole() != Role.ADMIN && !userId.equals(currentUser.getId())) {
+            throw new UserNotFoundException("User not found or access denied");
+        }
+    }
 }
@@ -3,8 +3,15 @@ package com.example.bankcards.controller;
 import com.example.bankcards.dto.UserDto;
 import com.example.bankcards.service.UserService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 
 @RestController
 @RequestMapping("/api/users")
@@ -14,11 +21,34 @@ public class UserController {
     private final UserService userService;
 
     /**
-     * Получение пользователя по ID (для ADMIN)
+     * Получение пользователя по ID (для ADMIN).
+     * Поддерживает If-None-Match: неизменившийся пользователь — 304 без тела.
+     * Last-Modified не отдаётся: времени изменения у пользователя нет, а createdAt не меняется при правке роли или логина
      */
     @GetMapping("/{id}")
-    public ResponseEntity<UserDto> getUserById(@PathVariable Long id) {
+    public ResponseEntity<UserDto> getUserById(@PathVariable Long id, WebRequest webRequest) {
         UserDto userDto = userService.getUserById(id);
-        return ResponseEntity.ok(userDto);
+        String eTag = eTag(userDto);
+        if (webRequest.checkNotModified(eTag)) {
+            // ETag и 304 уже выставлены checkNotModified
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(CardController.REVALIDATE).build();
+        }
+        return ResponseEntity.ok().eTag(eTag).cacheControl(CardController.REVALIDATE).body(userDto);
+    }
+
+    /**
+     * Пользователь не меняется через API и не имеет версии: ETag — SHA-256 всех полей ответа,
+     * чтобы правка роли или логина в обход API тоже сменила его
+     */
+    private static String eTag(UserDto userDto) {
+        String fields = userDto.getId() + "\n" + userDto.getUsername() + "\n" + userDto.getRole() + "\n"
+                + userDto.getCreatedAt();
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(fields.getBytes(StandardCharsets.UTF_8));
+            return "\"" + HexFormat.of().formatHex(digest) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 обязан поддерживаться любой реализацией Java
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,15 @@
+package com.example.bankcards.dto;
+
+import lombok.*;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AuthTokenDto {
+
+    private String accessToken;
+    private String tokenType;
+    // Время жизни токена в секундах
+    private long expiresIn;
+}
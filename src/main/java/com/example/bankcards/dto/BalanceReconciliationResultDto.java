@@ -0,0 +1,19 @@
+package com.example.bankcards.dto;
+
+import lombok.*;
+
+/**
+ * Итог сверки сводки по картам с фактическими данными таблицы cards
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BalanceReconciliationResultDto {
+
+    private boolean skipped;          // сверку сейчас выполняет другой узел
+    private long usersChecked;
+    private long userMismatches;      // исправлено строк сводки пользователей
+    private long totalMismatches;     // исправлено системных итогов по статусам
+    private long durationMs;
+}
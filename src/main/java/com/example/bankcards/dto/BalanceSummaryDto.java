@@ -0,0 +1,21 @@
+package com.example.bankcards.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Число карт и сумма балансов пользователя или всей системы, с разбивкой по статусам
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BalanceSummaryDto {
+
+    private Long userId;  // null — итоги по всей системе
+    private long cardCount;
+    private BigDecimal totalBalance;
+    private List<StatusBalanceDto> statuses;
+}
@@ -0,0 +1,19 @@
+package com.example.bankcards.dto;
+
+import lombok.*;
+
+/**
+ * Итог заполнения слепого индекса номеров у существующих карт
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BlindIndexBackfillResultDto {
+
+    private long processed;   // карт без индекса просмотрено
+    private long updated;     // индекс записан
+    private long duplicates;  // номер совпал с уже проиндексированной картой
+    private long failed;      // номер не удалось расшифровать
+    private long durationMs;
+}
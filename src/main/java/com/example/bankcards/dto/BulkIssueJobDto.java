@@ -0,0 +1,26 @@
+package com.example.bankcards.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Прогресс и итог задачи пакетного выпуска карт
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkIssueJobDto {
+
+    private String jobId;
+    private BulkIssueStatus status;
+    private int total;
+    private int processed;
+    private int created;
+    private int failed;
+    private List<BulkIssueRowErrorDto> errors;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,14 @@
+package com.example.bankcards.dto;
+
+import lombok.*;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkIssueRowErrorDto {
+
+    private int index;  // номер строки во входных данных (с 0, без заголовка CSV)
+    private String code;
+    private String message;
+}
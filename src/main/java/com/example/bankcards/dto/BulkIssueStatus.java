@@ -0,0 +1,10 @@
+package com.example.bankcards.dto;
+
+/**
+ * Состояние задачи пакетного выпуска карт
+ */
+public enum BulkIssueStatus {
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
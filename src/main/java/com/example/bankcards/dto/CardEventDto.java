@@ -0,0 +1,25 @@
+package com.example.bankcards.dto;
+
+import com.example.bankcards.entity.CardEventType;
+import com.example.bankcards.entity.Status;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CardEventDto {
+
+    private Long id;
+    @JsonIgnore
+    private Long userId;        // владелец карты: кому рассылается событие
+    private Long cardId;
+    private CardEventType type;
+    private Status status;      // статус карты после события (для CREATED, BLOCKED, ACTIVATED, EXPIRED)
+    private BigDecimal amount;  // изменение баланса со знаком (BALANCE_CHANGED) или начальный баланс (CREATED)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,16 @@
+package com.example.bankcards.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import lombok.*;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CardLookupRequestDto {
+
+    @NotNull(message = "Card number is required")
+    @Pattern(regexp = "^\\d{16}$", message = "Card number must be 16 digits")
+    private String cardNumber;
+}
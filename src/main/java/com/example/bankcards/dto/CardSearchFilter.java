@@ -0,0 +1,31 @@
+package com.example.bankcards.dto;
+
+import com.example.bankcards.entity.Status;
+import jakarta.validation.constraints.Pattern;
+import lombok.*;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+/**
+ * Фильтры поиска карт администратором; незаданные фильтры не применяются
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CardSearchFilter {
+
+    private Long userId;
+
+    private Status status;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate expiryFrom;  // включительно
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate expiryTo;  // включительно
+
+    @Pattern(regexp = "^\\d{4}$", message = "Last 4 digits must be 4 digits")
+    private String last4;
+}
@@ -0,0 +1,21 @@
+package com.example.bankcards.dto;
+
+import com.example.bankcards.entity.TransactionType;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CardTransactionDto {
+
+    private Long id;
+    private Long cardId;
+    private Long counterpartyCardId;
+    private TransactionType type;
+    private BigDecimal amount;  // со знаком: списание отрицательное
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,23 @@
+package com.example.bankcards.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * Страница курсорной (keyset) пагинации.
+ * Следующая страница запрашивается по {@code nextCursor}; общее количество
+ * считается только по запросу, так как требует отдельного count(*).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CursorPageDto<T> {
+
+    private List<T> content;
+    private int pageSize;
+    private boolean hasNext;
+    private String nextCursor;
+    private Long totalElements;
+}
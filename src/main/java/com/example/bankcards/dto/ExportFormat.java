@@ -0,0 +1,9 @@
+package com.example.bankcards.dto;
+
+/**
+ * Формат потоковой выгрузки карт
+ */
+public enum ExportFormat {
+    NDJSON,
+    CSV
+}
@@ -0,0 +1,20 @@
+package com.example.bankcards.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class TransferResultDto {
+
+    private int index;
+    private Long fromCardId;
+    private Long toCardId;
+    private BigDecimal amount;
+    private boolean success;
+    private String code;
+    private String message;
+}
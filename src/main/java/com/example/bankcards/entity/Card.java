@@ -16,7 +16,8 @@ import java.time.LocalDateTime;
 public class Card {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cards_id_seq")
+    @SequenceGenerator(name = "cards_id_seq", sequenceName = "cards_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -26,9 +27,15 @@ public class Card {
     @Column(name = "card_number_encrypted", nullable = false)
     private String cardNumberEncrypted;
 
+    @Column(name = "card_number_hash")
+    private String cardNumberHash;  // слепой индекс номера (HMAC)
+
     @Column(name = "card_mask", nullable = false)
     private String cardMask;  // маска: **** **** **** 1234
 
+    @Column(name = "card_last4", nullable = false, length = 4)
+    private String cardLast4;  // последние 4 цифры из маски (для поиска)
+
     @Column(name = "expiry_date", nullable = false)
     private LocalDate expiryDate;
 
@@ -39,6 +46,10 @@ public class Card {
     @Column(name = "balance", nullable = false, precision = 15, scale = 2)
     private BigDecimal balance;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;  // оптимистичная блокировка: UPDATE/DELETE сущности проверяют версию
+
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
 
@@ -47,6 +58,7 @@ public class Card {
 
     @PrePersist
     protected void onCreate() {
+        this.cardLast4 = cardMask.substring(cardMask.length() - 4);
         this.createdAt = LocalDateTime.now();
         this.updatedAt = LocalDateTime.now();
     }
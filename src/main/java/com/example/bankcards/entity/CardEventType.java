@@ -0,0 +1,10 @@
+package com.example.bankcards.entity;
+
+public enum CardEventType {
+    CREATED,
+    BALANCE_CHANGED,
+    BLOCKED,
+    ACTIVATED,
+    EXPIRED,
+    DELETED
+}
@@ -0,0 +1,6 @@
+package com.example.bankcards.entity;
+
+public enum TransactionType {
+    TRANSFER_IN,
+    TRANSFER_OUT
+}
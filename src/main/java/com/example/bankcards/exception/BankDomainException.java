@@ -0,0 +1,14 @@
+package com.example.bankcards.exception;
+
+/**
+ * Базовое исключение бизнес-отказов (карта не найдена, недостаточно средств и т.п.).
+ * Такие отказы — штатная часть трафика, а не ошибки: стек вызовов не заполняется,
+ * иначе каждый отказ обходил бы сотни кадров Spring/Hibernate ради трассы, которую никто не читает.
+ * Подавленные исключения тоже не собираются.
+ */
+public abstract class BankDomainException extends RuntimeException {
+
+    protected BankDomainException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.bankcards.exception;
+
+public class BulkIssueJobNotFoundException extends BankDomainException {
+    public BulkIssueJobNotFoundException(String message) {
+        super(message);
+    }
+}
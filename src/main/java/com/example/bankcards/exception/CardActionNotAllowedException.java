@@ -1,6 +1,6 @@
 package com.example.bankcards.exception;
 
-public class CardActionNotAllowedException extends RuntimeException {
+public class CardActionNotAllowedException extends BankDomainException {
     public CardActionNotAllowedException(String message) {
         super(message);
     }
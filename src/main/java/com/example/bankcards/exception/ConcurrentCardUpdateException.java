@@ -0,0 +1,7 @@
+package com.example.bankcards.exception;
+
+public class ConcurrentCardUpdateException extends BankDomainException {
+    public ConcurrentCardUpdateException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.bankcards.exception;
+
+public class DuplicateCardNumberException extends BankDomainException {
+    public DuplicateCardNumberException(String message) {
+        super(message);
+    }
+}
@@ -2,8 +2,12 @@ package com.example.bankcards.exception;
 
 import com.example.bankcards.dto.ErrorResponseDto;
 import jakarta.validation.ConstraintViolationException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -12,17 +16,20 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * Ответы об ошибках. Для ошибок с постоянным текстом отдаются готовые сериализованные ответы
+ * ({@link PrecomputedErrorResponses}); текст с данными запроса (ID карты, задачи) собирается заново.
+ */
 @RestControllerAdvice
+@RequiredArgsConstructor
 public class GlobalExceptionHandler {
 
+    private final PrecomputedErrorResponses errorResponses;
+
     // Обработка кастомных исключений
     @ExceptionHandler(CardNotFoundException.class)
-    public ResponseEntity<ErrorResponseDto> handleCardNotFound(CardNotFoundException ex) {
-        ErrorResponseDto error = ErrorResponseDto.builder()
-                .code("CARD_NOT_FOUND")
-                .message(ex.getMessage())
-                .build();
-        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+    public ResponseEntity<byte[]> handleCardNotFound(CardNotFoundException ex) {
+        return errorResponses.get(HttpStatus.NOT_FOUND, "CARD_NOT_FOUND", ex.getMessage());
     }
 
     @ExceptionHandler(InsufficientFundsException.class)
@@ -35,30 +42,73 @@ public class GlobalExceptionHandler {
     }
 
     @ExceptionHandler(CardActionNotAllowedException.class)
-    public ResponseEntity<ErrorResponseDto> handleCardActionNotAllowed(CardActionNotAllowedException ex) {
-        ErrorResponseDto error = ErrorResponseDto.builder()
-                .code("CARD_ACTION_NOT_ALLOWED")
-                .message(ex.getMessage())
-                .build();
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    public ResponseEntity<byte[]> handleCardActionNotAllowed(CardActionNotAllowedException ex) {
+        return errorResponses.get(HttpStatus.BAD_REQUEST, "CARD_ACTION_NOT_ALLOWED", ex.getMessage());
     }
 
     @ExceptionHandler(UserNotFoundException.class)
-    public ResponseEntity<ErrorResponseDto> handleUserNotFound(UserNotFoundException ex) {
+    public ResponseEntity<byte[]> handleUserNotFound(UserNotFoundException ex) {
+        return errorResponses.get(HttpStatus.NOT_FOUND, "USER_NOT_FOUND", ex.getMessage());
+    }
+
+    @ExceptionHandler(InvalidCredentialsException.class)
+    public ResponseEntity<byte[]> handleInvalidCredentials(InvalidCredentialsException ex) {
+        return errorResponses.get(HttpStatus.UNAUTHORIZED, "INVALID_CREDENTIALS", ex.getMessage());
+    }
+
+    @ExceptionHandler(TransferBetweenSameCardException.class)
+    public ResponseEntity<byte[]> handleTransferBetweenSameCard(TransferBetweenSameCardException ex) {
+        return errorResponses.get(HttpStatus.BAD_REQUEST, "TRANSFER_TO_SAME_CARD", ex.getMessage());
+    }
+
+    @ExceptionHandler(ConcurrentCardUpdateException.class)
+    public ResponseEntity<ErrorResponseDto> handleConcurrentCardUpdate(ConcurrentCardUpdateException ex) {
         ErrorResponseDto error = ErrorResponseDto.builder()
-                .code("USER_NOT_FOUND")
+                .code("CONCURRENT_UPDATE")
                 .message(ex.getMessage())
                 .build();
-        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
     }
 
-    @ExceptionHandler(TransferBetweenSameCardException.class)
-    public ResponseEntity<ErrorResponseDto> handleTransferBetweenSameCard(TransferBetweenSameCardException ex) {
+    // Конфликт версий карты остался после всех повторов (@RetryOnConflict)
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<byte[]> handleOptimisticLockingFailure(OptimisticLockingFailureException ex) {
+        return errorResponses.get(HttpStatus.CONFLICT, "CONCURRENT_UPDATE", "Card was modified concurrently, retry the request");
+    }
+
+    @ExceptionHandler(RateLimitExceededException.class)
+    public ResponseEntity<byte[]> handleRateLimitExceeded(RateLimitExceededException ex) {
+        // Тело постоянное, меняется только Retry-After
+        ResponseEntity<byte[]> response = errorResponses.get(HttpStatus.TOO_MANY_REQUESTS, "RATE_LIMITED", ex.getMessage());
+        return ResponseEntity.status(response.getStatusCode())
+                .headers(response.getHeaders())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(response.getBody());
+    }
+
+    @ExceptionHandler(DuplicateCardNumberException.class)
+    public ResponseEntity<byte[]> handleDuplicateCardNumber(DuplicateCardNumberException ex) {
+        return errorResponses.get(HttpStatus.CONFLICT, "DUPLICATE_CARD_NUMBER", ex.getMessage());
+    }
+
+    @ExceptionHandler(BulkIssueJobNotFoundException.class)
+    public ResponseEntity<ErrorResponseDto> handleBulkIssueJobNotFound(BulkIssueJobNotFoundException ex) {
         ErrorResponseDto error = ErrorResponseDto.builder()
-                .code("TRANSFER_TO_SAME_CARD")
+                .code("BULK_JOB_NOT_FOUND")
                 .message(ex.getMessage())
                 .build();
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+    }
+
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<byte[]> handleInvalidCursor(InvalidCursorException ex) {
+        return errorResponses.get(HttpStatus.BAD_REQUEST, "INVALID_CURSOR", ex.getMessage());
+    }
+
+    // БД перегружена: пул не выдал соединение за connection-timeout
+    @ExceptionHandler(CannotCreateTransactionException.class)
+    public ResponseEntity<byte[]> handleCannotCreateTransaction(CannotCreateTransactionException ex) {
+        return errorResponses.get(HttpStatus.SERVICE_UNAVAILABLE, "DATABASE_BUSY", "Database is busy, retry later");
     }
 
     // Обработка ошибок валидации @Valid
@@ -87,11 +137,7 @@ public class GlobalExceptionHandler {
 
     // Обработка любых других непредвиденных ошибок
     @ExceptionHandler(Exception.class)
-    public ResponseEntity<ErrorResponseDto> handleGenericException(Exception ex) {
-        ErrorResponseDto error = ErrorResponseDto.builder()
-                .code("INTERNAL_ERROR")
-                .message("An unexpected error occurred")
-                .build();
-        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
+    public ResponseEntity<byte[]> handleGenericException(Exception ex) {
+        return errorResponses.get(HttpStatus.INTERNAL_SERVER_ERROR, "INTERNAL_ERROR", "An unexpected error occurred");
     }
 }
\ No newline at end of file
@@ -1,6 +1,6 @@
 package com.example.bankcards.exception;
 
-public class InsufficientFundsException extends RuntimeException{
+public class InsufficientFundsException extends BankDomainException {
     public InsufficientFundsException(String message) {
         super(message);
     }
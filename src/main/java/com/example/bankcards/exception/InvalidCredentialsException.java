@@ -0,0 +1,7 @@
+package com.example.bankcards.exception;
+
+public class InvalidCredentialsException extends BankDomainException {
+    public InvalidCredentialsException(String message) {
+        super(message);
+    }
+}
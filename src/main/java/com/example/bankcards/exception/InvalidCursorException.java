@@ -0,0 +1,7 @@
+package com.example.bankcards.exception;
+
+public class InvalidCursorException extends BankDomainException {
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+}
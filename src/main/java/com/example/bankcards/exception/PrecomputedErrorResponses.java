@@ -0,0 +1,67 @@
+package com.example.bankcards.exception;
+
+import com.example.bankcards.dto.ErrorResponseDto;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Готовые ответы об ошибках с постоянным текстом: тело {@link ErrorResponseDto} сериализуется
+ * в JSON один раз на пару (код, сообщение), дальше отдаётся тот же неизменяемый ResponseEntity —
+ * без DTO, сериализации и выделения памяти на каждый отказ.
+ * Для ошибок, текст которых содержит данные запроса (ID карты, задачи), кэш не используется.
+ */
+@Component
+public class PrecomputedErrorResponses {
+
+    /**
+     * Предел сообщений на код: защита от роста кэша, если текст всё же окажется переменным
+     */
+    private static final int MAX_MESSAGES_PER_CODE = 32;
+
+    private final ObjectMapper objectMapper;
+    private final ConcurrentMap<String, ConcurrentMap<String, ResponseEntity<byte[]>>> responses =
+            new ConcurrentHashMap<>();
+
+    public PrecomputedErrorResponses(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Ответ с кодом и постоянным сообщением; повторные вызовы возвращают тот же экземпляр
+     */
+    public ResponseEntity<byte[]> get(HttpStatus status, String code, String message) {
+        ConcurrentMap<String, ResponseEntity<byte[]>> byMessage =
+                responses.computeIfAbsent(code, key -> new ConcurrentHashMap<>());
+        ResponseEntity<byte[]> response = byMessage.get(message);
+        if (response == null) {
+            response = ResponseEntity.status(status)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(serialize(code, message));
+            if (byMessage.size() < MAX_MESSAGES_PER_CODE) {
+                ResponseEntity<byte[]> existing = byMessage.putIfAbsent(message, response);
+                if (existing != null) {
+                    response = existing;
+                }
+            }
+        }
+        return response;
+    }
+
+    private byte[] serialize(String code, String message) {
+        try {
+            return objectMapper.writeValueAsBytes(ErrorResponseDto.builder()
+                    .code(code)
+                    .message(message)
+                    .build());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize error response " + code, e);
+        }
+    }
+}
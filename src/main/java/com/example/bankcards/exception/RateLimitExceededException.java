@@ -0,0 +1,16 @@
+package com.example.bankcards.exception;
+
+public class RateLimitExceededException extends BankDomainException {
+
+    // Через сколько секунд повторить запрос (заголовок Retry-After)
+    private final long retryAfterSeconds;
+
+    public RateLimitExceededException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -1,6 +1,6 @@
 package com.example.bankcards.exception;
 
-public class TransferBetweenSameCardException extends RuntimeException {
+public class TransferBetweenSameCardException extends BankDomainException {
     public TransferBetweenSameCardException(String message) {
         super(message);
     }
@@ -0,0 +1,293 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.Status;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Сводка по картам (таблицы card_balance_aggregates и card_balance_totals):
+ * число карт и сумма балансов по пользователю и статусу, а также по всей системе.
+ * Сводка меняется приращениями в транзакции, изменившей карты, поэтому чтение сводки —
+ * поиск по первичному ключу, а не SUM по cards.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CardBalanceAggregateJdbcRepository {
+
+    /**
+     * Число слотов системных итогов; должно совпадать с миграцией V9
+     */
+    static final int TOTAL_SLOTS = 16;
+
+    private static final String UPDATE_USER_SQL =
+            "UPDATE card_balance_aggregates SET card_count = card_count + ?, total_balance = total_balance + ? " +
+            "WHERE user_id = ? AND status = ?";
+
+    private static final String INSERT_USER_SQL =
+            "INSERT INTO card_balance_aggregates (user_id, status) VALUES (?, ?) ON CONFLICT DO NOTHING";
+
+    private static final String UPDATE_TOTAL_SQL =
+            "UPDATE card_balance_totals SET card_count = card_count + ?, total_balance = total_balance + ? " +
+            "WHERE slot = ? AND status = ?";
+
+    private static final String INSERT_TOTAL_SQL =
+            "INSERT INTO card_balance_totals (slot, status) VALUES (?, ?) ON CONFLICT DO NOTHING";
+
+    private static final String SELECT_USER_SQL =
+            "SELECT user_id, status, card_count, total_balance FROM card_balance_aggregates WHERE user_id = ?";
+
+    private static final String SELECT_USER_RANGE_SQL =
+            "SELECT user_id, status, card_count, total_balance FROM card_balance_aggregates " +
+            "WHERE user_id > ? AND user_id <= ?";
+
+    private static final String SELECT_TOTALS_SQL =
+            "SELECT 0 AS user_id, status, SUM(card_count) AS card_count, SUM(total_balance) AS total_balance " +
+            "FROM card_balance_totals GROUP BY status";
+
+    private static final String COMPUTE_USER_RANGE_SQL =
+            "SELECT user_id, status, COUNT(*) AS card_count, SUM(balance) AS total_balance FROM cards " +
+            "WHERE user_id > ? AND user_id <= ? GROUP BY user_id, status";
+
+    private static final String COMPUTE_TOTALS_SQL =
+            "SELECT 0 AS user_id, status, COUNT(*) AS card_count, SUM(balance) AS total_balance " +
+            "FROM cards GROUP BY status";
+
+    private static final RowMapper<Aggregate> ROW_MAPPER = (rs, rowNum) -> new Aggregate(
+            rs.getLong("user_id"),
+            Status.valueOf(rs.getString("status")),
+            rs.getLong("card_count"),
+            rs.getBigDecimal("total_balance"));
+
+    /**
+     * Порядок ключей (пользователь или слот, статус) — он же порядок блокировки строк сводки
+     */
+    private static final Comparator<Aggregate> KEY_ORDER =
+            Comparator.comparingLong(Aggregate::userId).thenComparing(Aggregate::status);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Применяет приращения к сводке пользователей и к системным итогам (в текущей транзакции).
+     * Приращения по одному ключу складываются, нулевые отбрасываются; строки обновляются
+     * в порядке ключа, поэтому параллельные транзакции не блокируют друг друга взаимно.
+     *
+     * @param deltas приращения числа карт и суммы балансов по (пользователь, статус)
+     */
+    public void apply(Collection<Aggregate> deltas) {
+        timed("apply", () -> {
+            upsert(UPDATE_USER_SQL, INSERT_USER_SQL, merge(deltas, Function.identity()));
+            upsert(UPDATE_TOTAL_SQL, INSERT_TOTAL_SQL, merge(deltas, Aggregate::toSlot));
+            return null;
+        });
+    }
+
+    /**
+     * Применяет приращения только к системным итогам — для исправления расхождений,
+     * которых нет в сводке пользователей (например, карты удалены вместе с пользователем).
+     *
+     * @param deltas приращения по статусу; ID пользователя определяет только слот
+     */
+    public void applyToTotals(Collection<Aggregate> deltas) {
+        timed("applyToTotals", () -> {
+            upsert(UPDATE_TOTAL_SQL, INSERT_TOTAL_SQL, merge(deltas, Aggregate::toSlot));
+            return null;
+        });
+    }
+
+    /**
+     * Сводка по картам пользователя.
+     *
+     * @param userId ID пользователя
+     * @return строки сводки по статусам (статусы без карт могут отсутствовать)
+     */
+    public List<Aggregate> findByUser(long userId) {
+        return timed("findByUser", () -> jdbcTemplate.query(SELECT_USER_SQL, ROW_MAPPER, userId));
+    }
+
+    /**
+     * Итоги по всей системе: сумма не больше {@value #TOTAL_SLOTS} слотов на статус.
+     *
+     * @return итоги по статусам; ID пользователя в строках — 0
+     */
+    public List<Aggregate> findTotals() {
+        return timed("findTotals", () -> jdbcTemplate.query(SELECT_TOTALS_SQL, ROW_MAPPER));
+    }
+
+    /**
+     * Сводка по пользователям из диапазона ID (для сверки).
+     *
+     * @param afterUserId нижняя граница ID пользователя (не включительно)
+     * @param upToUserId  верхняя граница ID пользователя (включительно)
+     * @return строки сводки
+     */
+    public List<Aggregate> findUserRange(long afterUserId, long upToUserId) {
+        return timed("findUserRange", () ->
+                jdbcTemplate.query(SELECT_USER_RANGE_SQL, ROW_MAPPER, afterUserId, upToUserId));
+    }
+
+    /**
+     * Фактические число карт и сумма балансов по пользователям из диапазона ID — агрегат по cards.
+     *
+     * @param afterUserId нижняя граница ID пользователя (не включительно)
+     * @param upToUserId  верхняя граница ID пользователя (включительно)
+     * @return фактические значения по (пользователь, статус)
+     */
+    public List<Aggregate> computeUserRange(long afterUserId, long upToUserId) {
+        return timed("computeUserRange", () ->
+                jdbcTemplate.query(COMPUTE_USER_RANGE_SQL, ROW_MAPPER, afterUserId, upToUserId));
+    }
+
+    /**
+     * Фактические итоги по системе — агрегат по всей таблице cards (только для сверки).
+     *
+     * @return фактические значения по статусам; ID пользователя в строках — 0
+     */
+    public List<Aggregate> computeTotals() {
+        return timed("computeTotals", () -> jdbcTemplate.query(COMPUTE_TOTALS_SQL, ROW_MAPPER));
+    }
+
+    /**
+     * Блокирует ещё не просроченные карты из набора и возвращает приращение сводки каждой из них.
+     * Вызывается перед массовой сменой статуса в той же транзакции: пока строки заблокированы,
+     * балансы не изменятся, и приращения сводки совпадут с фактическими.
+     *
+     * @param cardIds ID карт
+     * @return ID карты → её пользователь, текущий статус и баланс (по возрастанию ID)
+     */
+    public Map<Long, Aggregate> lockNotExpired(Collection<Long> cardIds) {
+        return timed("lockNotExpired", () -> {
+            String placeholders = String.join(", ", Collections.nCopies(cardIds.size(), "?"));
+            Map<Long, Aggregate> cards = new LinkedHashMap<>();
+            jdbcTemplate.query(
+                    "SELECT id, user_id, status, 1 AS card_count, balance AS total_balance FROM cards " +
+                    "WHERE id IN (" + placeholders + ") AND status <> 'EXPIRED' ORDER BY id FOR UPDATE",
+                    rs -> {
+                        cards.put(rs.getLong("id"), ROW_MAPPER.mapRow(rs, cards.size()));
+                    }, cardIds.toArray());
+            return cards;
+        });
+    }
+
+    /**
+     * Складывает строки с одинаковым ключом и отбрасывает нулевые
+     */
+    private static List<Aggregate> merge(Collection<Aggregate> rows, Function<Aggregate, Aggregate> key) {
+        Map<Aggregate, Aggregate> merged = new TreeMap<>(KEY_ORDER);
+        for (Aggregate row : rows) {
+            Aggregate keyed = key.apply(row);
+            merged.merge(keyed, keyed, Aggregate::plus);
+        }
+        List<Aggregate> result = new ArrayList<>(merged.values());
+        result.removeIf(Aggregate::isZero);
+        return result;
+    }
+
+    /**
+     * UPDATE приращений одним batch; для отсутствующих строк — вставка нулевой строки и повторный UPDATE.
+     * ON CONFLICT DO NOTHING не падает, если ту же строку только что вставила параллельная транзакция.
+     */
+    private void upsert(String updateSql, String insertSql, List<Aggregate> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        List<Aggregate> missing = new ArrayList<>();
+        int[][] results = update(updateSql, rows);
+        int i = 0;
+        for (int[] batch : results) {
+            for (int count : batch) {
+                // SUCCESS_NO_INFO (-2) означает, что драйвер не сообщает число строк — считаем успехом
+                if (count == 0) {
+                    missing.add(rows.get(i));
+                }
+                i++;
+            }
+        }
+        if (!missing.isEmpty()) {
+            jdbcTemplate.batchUpdate(insertSql, missing, missing.size(), (ps, row) -> {
+                ps.setLong(1, row.userId());
+                ps.setString(2, row.status().name());
+            });
+            update(updateSql, missing);
+        }
+    }
+
+    private int[][] update(String sql, List<Aggregate> rows) {
+        return jdbcTemplate.batchUpdate(sql, rows, rows.size(), (ps, row) -> {
+            ps.setLong(1, row.cards());
+            ps.setBigDecimal(2, row.balance());
+            ps.setLong(3, row.userId());
+            ps.setString(4, row.status().name());
+        });
+    }
+
+    private <T> T timed(String method, Supplier<T> invocation) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String state = "SUCCESS";
+        String exception = "None";
+        try {
+            return invocation.get();
+        } catch (RuntimeException e) {
+            state = "ERROR";
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            // Те же имя и теги, что у метрик Spring Data репозиториев
+            sample.stop(meterRegistry.timer("spring.data.repository.invocations",
+                    "repository", "CardBalanceAggregateJdbcRepository",
+                    "method", method,
+                    "state", state,
+                    "exception", exception));
+        }
+    }
+
+    /**
+     * Число карт и сумма балансов по (пользователь, статус) — строка сводки или приращение к ней
+     *
+     * @param userId  ID пользователя (0 — вся система)
+     * @param status  статус карт
+     * @param cards   число карт (в приращении — со знаком)
+     * @param balance сумма балансов (в приращении — со знаком)
+     */
+    public record Aggregate(long userId, Status status, long cards, BigDecimal balance) {
+
+        /**
+         * Приращение сводки на одну карту
+         */
+        public static Aggregate ofCard(long userId, Status status, BigDecimal balance) {
+            return new Aggregate(userId, status, 1, balance);
+        }
+
+        public Aggregate negate() {
+            return new Aggregate(userId, status, -cards, balance.negate());
+        }
+
+        public Aggregate withStatus(Status newStatus) {
+            return new Aggregate(userId, newStatus, cards, balance);
+        }
+
+        public Aggregate plus(Aggregate other) {
+            return new Aggregate(userId, status, cards + other.cards, balance.add(other.balance));
+        }
+
+        public boolean isZero() {
+            return cards == 0 && balance.signum() == 0;
+        }
+
+        /**
+         * Та же строка, отнесённая к слоту системных итогов (ID пользователя заменён номером слота)
+         */
+        Aggregate toSlot() {
+            return new Aggregate(Math.floorMod(userId, TOTAL_SLOTS), status, cards, balance);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.bankcards.repository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Пакетные изменения балансов карт через JDBC batch.
+ * Используется там, где через JPA пришлось бы выполнять по отдельному UPDATE на каждую карту.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CardBalanceJdbcRepository {
+
+    private static final String APPLY_DELTA_SQL =
+            "UPDATE cards SET balance = balance + ?, updated_at = ?, version = version + 1 " +
+            "WHERE id = ? AND status = 'ACTIVE' AND balance + ? >= 0";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Применяет изменения балансов одним JDBC batch.
+     * Карты обновляются в порядке возрастания ID (тот же порядок блокировок, что и у одиночных переводов).
+     * Каждое изменение защищено условием {@code balance + delta >= 0}.
+     *
+     * @param deltas изменение баланса по ID карты
+     * @param now    время изменения (updated_at)
+     * @return ID карт, которые не удалось обновить (карта стала неактивной или баланс ушёл бы в минус)
+     */
+    public List<Long> applyDeltas(Map<Long, BigDecimal> deltas, LocalDateTime now) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String state = "SUCCESS";
+        String exception = "None";
+        try {
+            return doApplyDeltas(deltas, now);
+        } catch (RuntimeException e) {
+            state = "ERROR";
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            // Те же имя и теги, что у метрик Spring Data репозиториев
+            sample.stop(meterRegistry.timer("spring.data.repository.invocations",
+                    "repository", "CardBalanceJdbcRepository",
+                    "method", "applyDeltas",
+                    "state", state,
+                    "exception", exception));
+        }
+    }
+
+    private List<Long> doApplyDeltas(Map<Long, BigDecimal> deltas, LocalDateTime now) {
+        List<Map.Entry<Long, BigDecimal>> ordered = new ArrayList<>(new TreeMap<>(deltas).entrySet());
+        Timestamp timestamp = Timestamp.valueOf(now);
+
+        int[][] results = jdbcTemplate.batchUpdate(APPLY_DELTA_SQL, ordered, ordered.size(), (ps, entry) -> {
+            ps.setBigDecimal(1, entry.getValue());
+            ps.setTimestamp(2, timestamp);
+            ps.setLong(3, entry.getKey());
+            ps.setBigDecimal(4, entry.getValue());
+        });
+
+        List<Long> rejected = new ArrayList<>();
+        int i = 0;
+        for (int[] batch : results) {
+            for (int count : batch) {
+                // SUCCESS_NO_INFO (-2) означает, что драйвер не сообщает число строк — считаем успехом
+                if (count == 0) {
+                    rejected.add(ordered.get(i).getKey());
+                }
+                i++;
+            }
+        }
+        return rejected;
+    }
+}
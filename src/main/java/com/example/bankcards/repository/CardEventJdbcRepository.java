@@ -0,0 +1,159 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.dto.CardEventDto;
+import com.example.bankcards.entity.CardEventType;
+import com.example.bankcards.entity.Status;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Исходящие события по картам (таблица card_events, transactional outbox).
+ * События дописываются в транзакции, изменившей карту, и читаются по возрастанию id.
+ * ID назначается базой при вставке, а видимым событие становится при коммите, поэтому
+ * событие с меньшим id может появиться позже события с большим — читатель учитывает такие пропуски.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CardEventJdbcRepository {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO card_events (user_id, card_id, type, status, amount, created_at) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String SELECT_SQL =
+            "SELECT id, user_id, card_id, type, status, amount, created_at FROM card_events ";
+
+    private static final String DELETE_OLDER_THAN_SQL =
+            "DELETE FROM card_events WHERE id IN " +
+            "(SELECT id FROM card_events WHERE created_at < ? ORDER BY id LIMIT ?)";
+
+    private static final RowMapper<CardEventDto> ROW_MAPPER = (rs, rowNum) -> CardEventDto.builder()
+            .id(rs.getLong("id"))
+            .userId(rs.getLong("user_id"))
+            .cardId(rs.getLong("card_id"))
+            .type(CardEventType.valueOf(rs.getString("type")))
+            .status(rs.getString("status") != null ? Status.valueOf(rs.getString("status")) : null)
+            .amount(rs.getBigDecimal("amount"))
+            .createdAt(rs.getTimestamp("created_at").toLocalDateTime())
+            .build();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Дописывает события одним JDBC batch (в текущей транзакции)
+     *
+     * @param events события; ID назначается базой
+     */
+    public void appendAll(List<CardEventDto> events) {
+        timed("appendAll", () -> jdbcTemplate.batchUpdate(INSERT_SQL, events, events.size(), (ps, event) -> {
+            ps.setLong(1, event.getUserId());
+            ps.setLong(2, event.getCardId());
+            ps.setString(3, event.getType().name());
+            if (event.getStatus() != null) {
+                ps.setString(4, event.getStatus().name());
+            } else {
+                ps.setNull(4, Types.VARCHAR);
+            }
+            ps.setBigDecimal(5, event.getAmount());
+            ps.setTimestamp(6, Timestamp.valueOf(event.getCreatedAt()));
+        }));
+    }
+
+    /**
+     * События после указанного ID, по возрастанию ID
+     *
+     * @param afterId ID последнего прочитанного события
+     * @param limit   максимальное число событий
+     * @return события с ID больше {@code afterId}
+     */
+    public List<CardEventDto> findAfter(long afterId, int limit) {
+        return timed("findAfter", () -> jdbcTemplate.query(
+                SELECT_SQL + "WHERE id > ? ORDER BY id LIMIT ?", ROW_MAPPER, afterId, limit));
+    }
+
+    /**
+     * События пользователя после указанного ID, по возрастанию ID (повтор пропущенного при переподключении)
+     *
+     * @param userId  ID владельца карт
+     * @param afterId ID последнего полученного клиентом события
+     * @param limit   максимальное число событий
+     * @return события пользователя с ID больше {@code afterId}
+     */
+    public List<CardEventDto> findByUserAfter(long userId, long afterId, int limit) {
+        return timed("findByUserAfter", () -> jdbcTemplate.query(
+                SELECT_SQL + "WHERE user_id = ? AND id > ? ORDER BY id LIMIT ?", ROW_MAPPER, userId, afterId, limit));
+    }
+
+    /**
+     * События с указанными ID, если они уже закоммичены
+     *
+     * @param ids ID событий
+     * @return найденные события, по возрастанию ID
+     */
+    public List<CardEventDto> findByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+        return timed("findByIds", () -> jdbcTemplate.query(
+                SELECT_SQL + "WHERE id IN (" + placeholders + ") ORDER BY id", ROW_MAPPER, ids.toArray()));
+    }
+
+    /**
+     * @return наибольший ID события или 0, если событий нет
+     */
+    public long findMaxId() {
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM card_events", Long.class);
+        return maxId != null ? maxId : 0;
+    }
+
+    /**
+     * @return наименьший ID события или {@code null}, если событий нет
+     */
+    public Long findMinId() {
+        return jdbcTemplate.queryForObject("SELECT MIN(id) FROM card_events", Long.class);
+    }
+
+    /**
+     * Удаляет порцию событий старше указанного времени
+     *
+     * @param cutoff граница срока хранения
+     * @param limit  размер порции
+     * @return число удалённых событий
+     */
+    public int deleteOlderThan(LocalDateTime cutoff, int limit) {
+        return timed("deleteOlderThan", () -> jdbcTemplate.update(DELETE_OLDER_THAN_SQL, Timestamp.valueOf(cutoff), limit));
+    }
+
+    private <T> T timed(String method, Supplier<T> invocation) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String state = "SUCCESS";
+        String exception = "None";
+        try {
+            return invocation.get();
+        } catch (RuntimeException e) {
+            state = "ERROR";
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            // Те же имя и теги, что у метрик Spring Data репозиториев
+            sample.stop(meterRegistry.timer("spring.data.repository.invocations",
+                    "repository", "CardEventJdbcRepository",
+                    "method", method,
+                    "state", state,
+                    "exception", exception));
+        }
+    }
+}
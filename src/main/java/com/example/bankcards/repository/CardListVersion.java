@@ -0,0 +1,20 @@
+package com.example.bankcards.repository;
+
+/**
+ * Отпечаток набора карт пользователя для условных GET-запросов.
+ * Любой UPDATE карты увеличивает её version, новая карта получает наибольший ID,
+ * удаление уменьшает число карт — поэтому отпечаток меняется при любом изменении списка.
+ *
+ * @param cards      число карт
+ * @param maxId      наибольший ID карты (null — карт нет)
+ * @param versionSum сумма версий карт (null — карт нет)
+ */
+public record CardListVersion(long cards, Long maxId, Long versionSum) {
+
+    /**
+     * Значение ETag (в кавычках)
+     */
+    public String toETag() {
+        return "\"" + cards + "-" + (maxId != null ? maxId : 0) + "-" + (versionSum != null ? versionSum : 0) + "\"";
+    }
+}
@@ -1,17 +1,31 @@
 package com.example.bankcards.repository;
 
+import com.example.bankcards.dto.CardDto;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.Status;
 import com.example.bankcards.entity.User;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 /**
  * Репозиторий для работы с сущностью {@link Card}.
@@ -20,6 +34,13 @@ import java.util.Optional;
 @Repository
 public interface CardRepository extends JpaRepository<Card, Long> {
 
+    /**
+     * Общая часть запросов-проекций в {@link CardDto}
+     */
+    String CARD_DTO_SELECT = "SELECT new com.example.bankcards.dto.CardDto(" +
+            "c.id, c.user.id, c.cardMask, c.expiryDate, c.status, c.balance, c.createdAt, c.updatedAt) " +
+            "FROM Card c ";
+
     /**
      * Находит все карты указанного пользователя с поддержкой пагинации.
      *
@@ -66,6 +87,123 @@ public interface CardRepository extends JpaRepository<Card, Long> {
      */
     Page<Card> findAll(Pageable pageable);
 
+    /**
+     * Курсорная (keyset) выборка всех карт: следующие {@code limit} карт после указанного ID.
+     * В отличие от offset-пагинации, стоимость не растёт с номером страницы.
+     * Возвращает DTO-проекцию без загрузки управляемых сущностей.
+     *
+     * @param afterId ID последней карты предыдущей страницы (0 — с начала)
+     * @param limit   максимальное число карт
+     * @return карты, упорядоченные по ID
+     */
+    @Query(CARD_DTO_SELECT + "WHERE c.id > :afterId ORDER BY c.id")
+    List<CardDto> findCardDtosAfter(@Param("afterId") Long afterId, Limit limit);
+
+    /**
+     * Курсорная (keyset) выборка карт пользователя по индексу (user_id, id).
+     * Возвращает DTO-проекцию без загрузки управляемых сущностей.
+     *
+     * @param userId  ID владельца карт
+     * @param afterId ID последней карты предыдущей страницы (0 — с начала)
+     * @param limit   максимальное число карт
+     * @return карты пользователя, упорядоченные по ID
+     */
+    @Query(CARD_DTO_SELECT + "WHERE c.user.id = :userId AND c.id > :afterId ORDER BY c.id")
+    List<CardDto> findUserCardDtosAfter(@Param("userId") Long userId, @Param("afterId") Long afterId, Limit limit);
+
+    /**
+     * Находит карты пользователя сразу в виде {@link CardDto} с поддержкой пагинации.
+     * Фильтрует по user_id без загрузки самого пользователя; зашифрованный номер карты не читается.
+     *
+     * @param userId   ID владельца карт
+     * @param pageable параметры пагинации
+     * @return страница DTO карт пользователя
+     */
+    @Query(value = CARD_DTO_SELECT + "WHERE c.user.id = :userId",
+            countQuery = "SELECT COUNT(c) FROM Card c WHERE c.user.id = :userId")
+    Page<CardDto> findUserCardDtos(@Param("userId") Long userId, Pageable pageable);
+
+    /**
+     * Отпечаток карт пользователя для ETag: один агрегирующий запрос по индексу user_id
+     * вместо загрузки страницы карт.
+     *
+     * @param userId ID владельца карт
+     * @return число карт, наибольший ID и сумма версий
+     */
+    @Query("SELECT new com.example.bankcards.repository.CardListVersion(COUNT(c), MAX(c.id), SUM(c.version)) " +
+            "FROM Card c WHERE c.user.id = :userId")
+    CardListVersion findUserCardListVersion(@Param("userId") Long userId);
+
+    /**
+     * Находит все карты в системе сразу в виде {@link CardDto} с поддержкой пагинации.
+     *
+     * @param pageable параметры пагинации
+     * @return страница DTO всех карт
+     */
+    @Query(value = CARD_DTO_SELECT,
+            countQuery = "SELECT COUNT(c) FROM Card c")
+    Page<CardDto> findAllCardDtos(Pageable pageable);
+
+    /**
+     * Находит карту по ID сразу в виде {@link CardDto}.
+     *
+     * @param id ID карты
+     * @return Optional с DTO карты; пустой Optional — если карта не найдена
+     */
+    @Query(CARD_DTO_SELECT + "WHERE c.id = :id")
+    Optional<CardDto> findCardDtoById(@Param("id") Long id);
+
+    /**
+     * Находит карту по слепому индексу номера сразу в виде {@link CardDto}.
+     * Поиск идёт по уникальному индексу card_number_hash, без расшифровки номеров.
+     *
+     * @param cardNumberHash слепой индекс номера карты
+     * @return Optional с DTO карты; пустой Optional — если карта не найдена
+     */
+    @Query(CARD_DTO_SELECT + "WHERE c.cardNumberHash = :cardNumberHash")
+    Optional<CardDto> findCardDtoByCardNumberHash(@Param("cardNumberHash") String cardNumberHash);
+
+    /**
+     * Проверяет, существует ли карта с таким слепым индексом номера.
+     *
+     * @param cardNumberHash слепой индекс номера карты
+     * @return true — если карта с таким номером уже выпущена
+     */
+    boolean existsByCardNumberHash(String cardNumberHash);
+
+    /**
+     * Возвращает слепые индексы из указанного набора, для которых карты уже выпущены.
+     * Используется пакетным выпуском для проверки дубликатов одним запросом на порцию.
+     *
+     * @param cardNumberHashes слепые индексы номеров карт
+     * @return индексы номеров, уже существующих в базе
+     */
+    @Query("SELECT c.cardNumberHash FROM Card c WHERE c.cardNumberHash IN :cardNumberHashes")
+    Set<String> findExistingCardNumberHashes(@Param("cardNumberHashes") Collection<String> cardNumberHashes);
+
+    /**
+     * Потоковая выборка всех карт в виде {@link CardDto} для выгрузки.
+     * Строки читаются серверным курсором порциями по {@code fetchSize}, а DTO-проекция
+     * не попадает в persistence context, поэтому расход памяти не зависит от числа карт.
+     * Вызывать только внутри транзакции; поток нужно закрыть после использования.
+     *
+     * @return поток DTO карт, упорядоченных по ID
+     */
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query(CARD_DTO_SELECT + "ORDER BY c.id")
+    Stream<CardDto> streamAllCardDtos();
+
+    /**
+     * Считает карты пользователя.
+     *
+     * @param userId ID владельца карт
+     * @return количество карт пользователя
+     */
+    long countByUserId(Long userId);
+
     /**
      * Находит активную карту по ID, принадлежащую указанному пользователю.
      * Используется при переводе средств — перевод возможен только с активной карты.
@@ -76,4 +214,72 @@ public interface CardRepository extends JpaRepository<Card, Long> {
      */
     @Query("SELECT c FROM Card c WHERE c.id = :cardId AND c.user = :user AND c.status = 'ACTIVE'")
     Optional<Card> findActiveCardByIdAndUser(@Param("cardId") Long cardId, @Param("user") User user);
+
+    /**
+     * Находит активные карты пользователя из указанного набора ID одним запросом.
+     * Используется пакетным переводом, чтобы не загружать карты по одной.
+     *
+     * @param cardIds ID карт
+     * @param user    владелец карт
+     * @return найденные активные карты пользователя (отсутствующие, чужие и неактивные не возвращаются)
+     */
+    @Query("SELECT c FROM Card c WHERE c.id IN :cardIds AND c.user = :user AND c.status = 'ACTIVE'")
+    List<Card> findActiveCardsByIdsAndUser(@Param("cardIds") Collection<Long> cardIds, @Param("user") User user);
+
+    /**
+     * Находит ID карт с истёкшим сроком действия, которые ещё не помечены как EXPIRED.
+     * Использует индекс по expiry_date; выборка ограничена размером порции.
+     *
+     * @param today текущая дата: просрочены карты с expiry_date раньше неё
+     * @param limit максимальное число карт в порции
+     * @return ID просроченных карт
+     */
+    @Query("SELECT c.id FROM Card c WHERE c.expiryDate < :today AND c.status <> 'EXPIRED'")
+    List<Long> findIdsToExpire(@Param("today") LocalDate today, Limit limit);
+
+    /**
+     * Помечает карты как EXPIRED одним UPDATE по набору ID.
+     * Повторная пометка уже просроченной карты исключена условием на статус.
+     *
+     * @param cardIds ID карт
+     * @param now     время изменения (updated_at)
+     * @return число помеченных карт
+     */
+    @Modifying
+    @Query("UPDATE Card c SET c.status = 'EXPIRED', c.updatedAt = :now, c.version = c.version + 1 " +
+            "WHERE c.id IN :cardIds AND c.status <> 'EXPIRED'")
+    int expireCards(@Param("cardIds") Collection<Long> cardIds, @Param("now") LocalDateTime now);
+
+    /**
+     * Списывает сумму с активной карты пользователя одним условным UPDATE.
+     * Проверка баланса выполняется в самой базе ({@code balance >= amount}), поэтому
+     * параллельные переводы с одной карты не могут затереть друг друга или увести баланс в минус.
+     * Версия карты увеличивается: загруженная раньше сущность не перезапишет новый баланс.
+     *
+     * @param cardId ID карты-источника
+     * @param user   владелец карты
+     * @param amount сумма списания
+     * @param now    время изменения (updated_at)
+     * @return 1 — если списание выполнено; 0 — если карта не найдена, не активна, чужая или средств недостаточно
+     */
+    @Modifying
+    @Query("UPDATE Card c SET c.balance = c.balance - :amount, c.updatedAt = :now, c.version = c.version + 1 " +
+            "WHERE c.id = :cardId AND c.user = :user AND c.status = 'ACTIVE' AND c.balance >= :amount")
+    int debitActiveCard(@Param("cardId") Long cardId, @Param("user") User user,
+                        @Param("amount") BigDecimal amount, @Param("now") LocalDateTime now);
+
+    /**
+     * Зачисляет сумму на активную карту пользователя одним UPDATE.
+     *
+     * @param cardId ID карты-получателя
+     * @param user   владелец карты
+     * @param amount сумма зачисления
+     * @param now    время изменения (updated_at)
+     * @return 1 — если зачисление выполнено; 0 — если карта не найдена, не активна или чужая
+     */
+    @Modifying
+    @Query("UPDATE Card c SET c.balance = c.balance + :amount, c.updatedAt = :now, c.version = c.version + 1 " +
+            "WHERE c.id = :cardId AND c.user = :user AND c.status = 'ACTIVE'")
+    int creditActiveCard(@Param("cardId") Long cardId, @Param("user") User user,
+                         @Param("amount") BigDecimal amount, @Param("now") LocalDateTime now);
 }
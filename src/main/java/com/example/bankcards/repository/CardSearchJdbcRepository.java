@@ -0,0 +1,138 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.CardSearchFilter;
+import com.example.bankcards.entity.Status;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Поиск карт по комбинации фильтров (для администратора).
+ * Запрос собирается только из заданных фильтров, каждый из которых покрыт индексом:
+ * user_id — (user_id, id) / (user_id, status, id), status — (status, id),
+ * card_last4 — (card_last4, id), expiry_date — индекс по сроку действия.
+ * Выдача — keyset по id, поэтому без фильтров запрос идёт по первичному ключу.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CardSearchJdbcRepository {
+
+    private static final String SELECT_SQL =
+            "SELECT id, user_id, card_mask, expiry_date, status, balance, created_at, updated_at FROM cards ";
+
+    private static final String COUNT_SQL = "SELECT COUNT(*) FROM cards ";
+
+    private static final RowMapper<CardDto> ROW_MAPPER = (rs, rowNum) -> CardDto.builder()
+            .id(rs.getLong("id"))
+            .userId(rs.getLong("user_id"))
+            .cardMask(rs.getString("card_mask"))
+            .expiryDate(rs.getDate("expiry_date").toLocalDate())
+            .status(Status.valueOf(rs.getString("status")))
+            .balance(rs.getBigDecimal("balance"))
+            .createdAt(toLocalDateTime(rs.getTimestamp("created_at")))
+            .updatedAt(toLocalDateTime(rs.getTimestamp("updated_at")))
+            .build();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Следующие {@code limit} карт после указанного ID, подходящие под фильтры.
+     *
+     * @param filter  фильтры поиска
+     * @param afterId ID последней карты предыдущей страницы (0 — с начала)
+     * @param limit   максимальное число карт
+     * @return карты, упорядоченные по ID
+     */
+    public List<CardDto> search(CardSearchFilter filter, long afterId, int limit) {
+        SearchQuery query = buildQuery(filter, afterId, limit);
+        return timed("search", () -> jdbcTemplate.query(query.sql(), ROW_MAPPER, query.args().toArray()));
+    }
+
+    /**
+     * Считает карты, подходящие под фильтры.
+     *
+     * @param filter фильтры поиска
+     * @return количество карт
+     */
+    public long count(CardSearchFilter filter) {
+        List<Object> args = new ArrayList<>();
+        String where = buildWhere(filter, 0, args);
+        Long count = timed("count", () -> jdbcTemplate.queryForObject(COUNT_SQL + where, Long.class, args.toArray()));
+        return count != null ? count : 0;
+    }
+
+    /**
+     * Собирает запрос поиска; вынесено отдельно, чтобы план запроса можно было проверить через EXPLAIN
+     */
+    SearchQuery buildQuery(CardSearchFilter filter, long afterId, int limit) {
+        List<Object> args = new ArrayList<>();
+        String sql = SELECT_SQL + buildWhere(filter, afterId, args) + " ORDER BY id LIMIT ?";
+        args.add(limit);
+        return new SearchQuery(sql, args);
+    }
+
+    private String buildWhere(CardSearchFilter filter, long afterId, List<Object> args) {
+        StringBuilder where = new StringBuilder("WHERE id > ?");
+        args.add(afterId);
+        if (filter.getUserId() != null) {
+            where.append(" AND user_id = ?");
+            args.add(filter.getUserId());
+        }
+        if (filter.getStatus() != null) {
+            where.append(" AND status = ?");
+            args.add(filter.getStatus().name());
+        }
+        if (filter.getExpiryFrom() != null) {
+            where.append(" AND expiry_date >= ?");
+            args.add(Date.valueOf(filter.getExpiryFrom()));
+        }
+        if (filter.getExpiryTo() != null) {
+            where.append(" AND expiry_date <= ?");
+            args.add(Date.valueOf(filter.getExpiryTo()));
+        }
+        if (filter.getLast4() != null) {
+            where.append(" AND card_last4 = ?");
+            args.add(filter.getLast4());
+        }
+        return where.toString();
+    }
+
+    private <T> T timed(String method, Supplier<T> invocation) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String state = "SUCCESS";
+        String exception = "None";
+        try {
+            return invocation.get();
+        } catch (RuntimeException e) {
+            state = "ERROR";
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            // Те же имя и теги, что у метрик Spring Data репозиториев
+            sample.stop(meterRegistry.timer("spring.data.repository.invocations",
+                    "repository", "CardSearchJdbcRepository",
+                    "method", method,
+                    "state", state,
+                    "exception", exception));
+        }
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+
+    record SearchQuery(String sql, List<Object> args) {
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.dto.CardTransactionDto;
+import com.example.bankcards.entity.TransactionType;
+import com.example.bankcards.util.PageCursorUtil.TimeCursor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Журнал операций по картам (таблица card_transactions).
+ * Журнал только дописывается; в PostgreSQL таблица секционирована по месяцам,
+ * поэтому выписка всегда ограничивается по времени и читается по индексу (card_id, created_at, id).
+ */
+@Repository
+@RequiredArgsConstructor
+public class CardTransactionJdbcRepository {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO card_transactions (card_id, counterparty_card_id, type, amount, created_at) " +
+            "VALUES (?, ?, ?, ?, ?)";
+
+    private static final String SELECT_SQL =
+            "SELECT id, card_id, counterparty_card_id, type, amount, created_at FROM card_transactions " +
+            "WHERE card_id = ? AND created_at >= ? AND created_at < ?";
+
+    private static final RowMapper<CardTransactionDto> ROW_MAPPER = (rs, rowNum) -> CardTransactionDto.builder()
+            .id(rs.getLong("id"))
+            .cardId(rs.getLong("card_id"))
+            .counterpartyCardId(rs.getObject("counterparty_card_id", Long.class))
+            .type(TransactionType.valueOf(rs.getString("type")))
+            .amount(rs.getBigDecimal("amount"))
+            .createdAt(rs.getTimestamp("created_at").toLocalDateTime())
+            .build();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Дописывает операции в журнал одним JDBC batch (в текущей транзакции)
+     *
+     * @param entries операции; ID назначается базой
+     */
+    public void appendAll(List<CardTransactionDto> entries) {
+        timed("appendAll", () -> jdbcTemplate.batchUpdate(INSERT_SQL, entries, entries.size(), (ps, entry) -> {
+            ps.setLong(1, entry.getCardId());
+            if (entry.getCounterpartyCardId() != null) {
+                ps.setLong(2, entry.getCounterpartyCardId());
+            } else {
+                ps.setNull(2, Types.BIGINT);
+            }
+            ps.setString(3, entry.getType().name());
+            ps.setBigDecimal(4, entry.getAmount());
+            ps.setTimestamp(5, Timestamp.valueOf(entry.getCreatedAt()));
+        }));
+    }
+
+    /**
+     * Выписка по карте за период, от новых операций к старым.
+     * Пагинация keyset: следующая страница начинается строго после позиции {@code after},
+     * поэтому стоимость запроса не зависит от глубины листания.
+     *
+     * @param cardId ID карты
+     * @param from   начало периода (включительно)
+     * @param to     конец периода (не включительно)
+     * @param after  позиция последней записи предыдущей страницы или {@code null}
+     * @param limit  максимальное число записей
+     * @return операции, упорядоченные по убыванию (created_at, id)
+     */
+    public List<CardTransactionDto> findByCard(Long cardId, LocalDateTime from, LocalDateTime to,
+                                               TimeCursor after, int limit) {
+        StringBuilder sql = new StringBuilder(SELECT_SQL);
+        List<Object> args = new ArrayList<>(List.of(cardId, Timestamp.valueOf(from), Timestamp.valueOf(to)));
+        if (after != null) {
+            sql.append(" AND (created_at, id) < (?, ?)");
+            args.add(Timestamp.valueOf(after.createdAt()));
+            args.add(after.id());
+        }
+        sql.append(" ORDER BY created_at DESC, id DESC LIMIT ?");
+        args.add(limit);
+
+        return timed("findByCard", () -> jdbcTemplate.query(sql.toString(), ROW_MAPPER, args.toArray()));
+    }
+
+    private <T> T timed(String method, Supplier<T> invocation) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String state = "SUCCESS";
+        String exception = "None";
+        try {
+            return invocation.get();
+        } catch (RuntimeException e) {
+            state = "ERROR";
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            // Те же имя и теги, что у метрик Spring Data репозиториев
+            sample.stop(meterRegistry.timer("spring.data.repository.invocations",
+                    "repository", "CardTransactionJdbcRepository",
+                    "method", method,
+                    "state", state,
+                    "exception", exception));
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.bankcards.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+/**
+ * Блокировки фоновых задач между узлами (таблица job_locks).
+ * Блокировка — аренда до {@code locked_until}: если узел упал, не освободив её,
+ * задачу подхватит другой узел после истечения аренды. Работает на любой СУБД,
+ * в отличие от advisory-блокировок PostgreSQL, и не держит соединение на время задачи.
+ */
+@Repository
+@RequiredArgsConstructor
+public class JobLockJdbcRepository {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO job_locks (name, locked_until) VALUES (?, ?)";
+
+    private static final String ACQUIRE_SQL =
+            "UPDATE job_locks SET locked_until = ?, locked_at = ?, locked_by = ? " +
+            "WHERE name = ? AND locked_until <= ?";
+
+    private static final String RELEASE_SQL =
+            "UPDATE job_locks SET locked_until = ? WHERE name = ? AND locked_by = ?";
+
+    /**
+     * Идентификатор узла: имя JVM (pid@host) и случайная часть на случай повторного pid
+     */
+    private static final String OWNER = ManagementFactory.getRuntimeMXBean().getName()
+            + "/" + UUID.randomUUID().toString().substring(0, 8);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Пытается взять блокировку задачи на указанное время.
+     *
+     * @param name     имя задачи
+     * @param lockTime максимальное время удержания (аренда)
+     * @return true — блокировка взята этим узлом; false — её держит другой узел
+     */
+    public boolean tryAcquire(String name, Duration lockTime) {
+        // Точность TIMESTAMP в базе ниже наносекунд — округление не должно ломать сравнение с locked_until
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        try {
+            jdbcTemplate.update(INSERT_SQL, name, Timestamp.valueOf(now));
+        } catch (DuplicateKeyException e) {
+            // Строка задачи уже создана ранее — это обычный случай
+        }
+        int updated = jdbcTemplate.update(ACQUIRE_SQL,
+                Timestamp.valueOf(now.plus(lockTime)), Timestamp.valueOf(now), OWNER, name, Timestamp.valueOf(now));
+        return updated == 1;
+    }
+
+    /**
+     * Освобождает блокировку, если её держит этот узел.
+     *
+     * @param name имя задачи
+     */
+    public void release(String name) {
+        jdbcTemplate.update(RELEASE_SQL, Timestamp.valueOf(LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS)), name, OWNER);
+    }
+}
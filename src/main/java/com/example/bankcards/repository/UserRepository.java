@@ -1,10 +1,16 @@
 package com.example.bankcards.repository;
 
 import com.example.bankcards.entity.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Репозиторий для работы с сущностью {@link User}.
@@ -28,4 +34,25 @@ public interface UserRepository extends JpaRepository<User, Long> {
      * @return true, если пользователь с таким именем уже существует; false — иначе
      */
     boolean existsByUsername(String username);
-}
\ No newline at end of file
+
+    /**
+     * Возвращает ID существующих пользователей из указанного набора одним запросом.
+     * Используется пакетным выпуском карт вместо проверки пользователей по одному.
+     *
+     * @param ids ID пользователей для проверки
+     * @return ID пользователей, которые существуют
+     */
+    @Query("SELECT u.id FROM User u WHERE u.id IN :ids")
+    Set<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Курсорная (keyset) выборка ID пользователей: следующие {@code limit} ID после указанного.
+     * Используется фоновыми задачами, которые обходят пользователей порциями.
+     *
+     * @param afterId ID последнего пользователя предыдущей порции (0 — с начала)
+     * @param limit   максимальное число ID
+     * @return ID пользователей по возрастанию
+     */
+    @Query("SELECT u.id FROM User u WHERE u.id > :afterId ORDER BY u.id")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Limit limit);
+}
@@ -0,0 +1,38 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+
+/**
+ * Аутентифицированный пользователь — principal в SecurityContext.
+ * Неизменяемый, поэтому один экземпляр из кэша разделяется между запросами.
+ *
+ * @param id       ID пользователя
+ * @param username логин
+ * @param role     роль
+ */
+public record AuthenticatedUser(Long id, String username, Role role) {
+
+    public static AuthenticatedUser of(User user) {
+        return new AuthenticatedUser(user.getId(), user.getUsername(), user.getRole());
+    }
+
+    public List<GrantedAuthority> authorities() {
+        return List.of(new SimpleGrantedAuthority("ROLE_" + role.name()));
+    }
+
+    /**
+     * Пользователь для сервисного слоя: новый экземпляр на каждый запрос, без пароля и карт
+     */
+    public User toUser() {
+        return User.builder()
+                .id(id)
+                .username(username)
+                .role(role)
+                .build();
+    }
+}
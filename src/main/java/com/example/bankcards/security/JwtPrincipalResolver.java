@@ -0,0 +1,138 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Определяет пользователя по JWT. Проверка подписи и поиск пользователя по логину кэшируются:
+ * повторный запрос с тем же токеном не разбирает его заново и не обращается к БД.
+ * <ul>
+ *     <li>проверенный токен хранится до истечения его срока действия — дольше он всё равно не принимается;</li>
+ *     <li>пользователь по логину хранится app.security.principal-cache-ttl: смена роли или удаление
+ *     пользователя вступают в силу не позже чем через это время.</li>
+ * </ul>
+ * Оба кэша ограничены по размеру.
+ */
+@Slf4j
+@Component
+public class JwtPrincipalResolver {
+
+    private final JwtTokenProvider tokenProvider;
+    private final UserRepository userRepository;
+    private final MeterRegistry meterRegistry;
+
+    private final Cache<String, VerifiedToken> verifiedTokens;
+    private final Cache<String, AuthenticatedUser> principals;
+
+    public JwtPrincipalResolver(JwtTokenProvider tokenProvider,
+                                UserRepository userRepository,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.security.token-cache-size}") long tokenCacheSize,
+                                @Value("${app.security.principal-cache-size}") long principalCacheSize,
+                                @Value("${app.security.principal-cache-ttl}") Duration principalCacheTtl) {
+        this.tokenProvider = tokenProvider;
+        this.userRepository = userRepository;
+        this.meterRegistry = meterRegistry;
+        this.verifiedTokens = CaffeineCacheMetrics.monitor(meterRegistry, Caffeine.newBuilder()
+                .maximumSize(tokenCacheSize)
+                .expireAfter(new UntilTokenExpires())
+                .recordStats()
+                .<String, VerifiedToken>build(), "auth.tokens");
+        this.principals = CaffeineCacheMetrics.monitor(meterRegistry, Caffeine.newBuilder()
+                .maximumSize(principalCacheSize)
+                .expireAfterWrite(principalCacheTtl)
+                .recordStats()
+                .<String, AuthenticatedUser>build(), "auth.principals");
+    }
+
+    /**
+     * @param token JWT без префикса «Bearer »
+     * @return пользователь; пустой Optional — если токен недействителен или пользователя больше нет
+     */
+    public Optional<AuthenticatedUser> resolve(String token) {
+        VerifiedToken verified = verifiedTokens.getIfPresent(token);
+        if (verified == null) {
+            verified = verify(token);
+            if (verified == null) {
+                return Optional.empty();
+            }
+        } else if (!verified.expiresAt().isAfter(Instant.now())) {
+            // Кэш истекает по тому же сроку, проверка страхует от рассинхронизации часов кэша
+            verifiedTokens.invalidate(token);
+            reject("expired");
+            return Optional.empty();
+        }
+
+        AuthenticatedUser user = principals.get(verified.username(), username ->
+                userRepository.findByUsername(username).map(AuthenticatedUser::of).orElse(null));
+        if (user == null) {
+            reject("unknown_user");
+        }
+        return Optional.ofNullable(user);
+    }
+
+    /**
+     * Сбрасывает закэшированного пользователя (например, после смены роли или пароля)
+     */
+    public void evictUser(String username) {
+        principals.invalidate(username);
+    }
+
+    private VerifiedToken verify(String token) {
+        try {
+            Claims claims = tokenProvider.parse(token);
+            if (claims.getSubject() == null || claims.getExpiration() == null) {
+                reject("invalid");
+                return null;
+            }
+            VerifiedToken verified = new VerifiedToken(claims.getSubject(), claims.getExpiration().toInstant());
+            verifiedTokens.put(token, verified);
+            return verified;
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("Rejected JWT: {}", e.getMessage());
+            reject("invalid");
+            return null;
+        }
+    }
+
+    private void reject(String reason) {
+        meterRegistry.counter("bank.auth.rejected", "reason", reason).increment();
+    }
+
+    private record VerifiedToken(String username, Instant expiresAt) {
+    }
+
+    /**
+     * Запись о проверенном токене живёт до истечения токена
+     */
+    private static class UntilTokenExpires implements Expiry<String, VerifiedToken> {
+
+        @Override
+        public long expireAfterCreate(String token, VerifiedToken verified, long currentTime) {
+            return Math.max(0, Duration.between(Instant.now(), verified.expiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String token, VerifiedToken verified, long currentTime, long currentDuration) {
+            return expireAfterCreate(token, verified, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String token, VerifiedToken verified, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
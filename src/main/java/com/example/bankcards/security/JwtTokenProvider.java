@@ -0,0 +1,78 @@
+package com.example.bankcards.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+
+/**
+ * Выпуск и проверка JWT (HMAC-SHA256). В токене только логин и срок действия:
+ * пользователь и его роль определяются по БД при проверке токена (см. {@link JwtPrincipalResolver}).
+ */
+@Slf4j
+@Component
+public class JwtTokenProvider {
+
+    private static final int KEY_SIZE_BYTES = 32;
+
+    private final SecretKey key;
+    private final JwtParser parser;
+    private final Duration ttl;
+
+    /**
+     * @param base64Secret ключ подписи в Base64 (не меньше 32 байт); если не задан — генерируется случайный
+     *                     (для примера), но тогда выданные токены не переживут перезапуск приложения
+     * @param ttl          время жизни токена
+     */
+    public JwtTokenProvider(@Value("${app.security.jwt.secret:}") String base64Secret,
+                            @Value("${app.security.jwt.ttl}") Duration ttl) {
+        byte[] rawKey;
+        if (base64Secret == null || base64Secret.isBlank()) {
+            log.warn("app.security.jwt.secret is not set, using a random key: issued tokens will not survive a restart");
+            rawKey = new byte[KEY_SIZE_BYTES];
+            new SecureRandom().nextBytes(rawKey);
+        } else {
+            rawKey = Decoders.BASE64.decode(base64Secret);
+        }
+        this.key = Keys.hmacShaKeyFor(rawKey);
+        this.parser = Jwts.parser().verifyWith(key).build();
+        this.ttl = ttl;
+    }
+
+    /**
+     * Выпускает токен для пользователя
+     */
+    public String generateToken(String username) {
+        Instant now = Instant.now();
+        return Jwts.builder()
+                .subject(username)
+                .issuedAt(Date.from(now))
+                .expiration(Date.from(now.plus(ttl)))
+                .signWith(key)
+                .compact();
+    }
+
+    /**
+     * Проверяет подпись и срок действия токена
+     *
+     * @throws JwtException если токен повреждён, подделан или истёк
+     */
+    public Claims parse(String token) {
+        return parser.parseSignedClaims(token).getPayload();
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.AuthTokenDto;
+import com.example.bankcards.dto.LoginRequestDto;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.InvalidCredentialsException;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.JwtTokenProvider;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+@Service
+@RequiredArgsConstructor
+public class AuthService {
+
+    private static final String TOKEN_TYPE = "Bearer";
+
+    private final UserRepository userRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final JwtTokenProvider tokenProvider;
+
+    /**
+     * Вход по логину и паролю: выдаёт JWT для заголовка Authorization.
+     * Ответ не различает неизвестный логин и неверный пароль.
+     */
+    public AuthTokenDto login(LoginRequestDto request) {
+        User user = userRepository.findByUsername(request.getUsername())
+                .filter(candidate -> passwordEncoder.matches(request.getPassword(), candidate.getPassword()))
+                .orElseThrow(() -> new InvalidCredentialsException("Invalid username or password"));
+
+        return AuthTokenDto.builder()
+                .accessToken(tokenProvider.generateToken(user.getUsername()))
+                .tokenType(TOKEN_TYPE)
+                .expiresIn(tokenProvider.getTtl().toSeconds())
+                .build();
+    }
+}
@@ -0,0 +1,223 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.config.ReadYourWritesTracker;
+import com.example.bankcards.dto.BalanceReconciliationResultDto;
+import com.example.bankcards.dto.BalanceSummaryDto;
+import com.example.bankcards.dto.StatusBalanceDto;
+import com.example.bankcards.entity.Status;
+import com.example.bankcards.repository.CardBalanceAggregateJdbcRepository;
+import com.example.bankcards.repository.CardBalanceAggregateJdbcRepository.Aggregate;
+import com.example.bankcards.repository.JobLockJdbcRepository;
+import com.example.bankcards.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Сводка по картам для дашбордов: число карт и сумма балансов по пользователю и по системе.
+ * Чтение — несколько строк по первичному ключу, независимо от размера таблицы cards.
+ * Сводку приращениями обновляют операции с картами; сверка по расписанию сравнивает её
+ * с фактическими агрегатами по cards и исправляет расхождения (например, после правок в обход приложения).
+ */
+@Slf4j
+@Service
+public class CardBalanceSummaryService {
+
+    static final String LOCK_NAME = "card-balance-reconciliation";
+
+    private final CardBalanceAggregateJdbcRepository aggregateRepository;
+    private final UserRepository userRepository;
+    private final UserService userService;
+    private final JobLockJdbcRepository jobLockRepository;
+    private final ReadYourWritesTracker readYourWrites;
+    private final TransactionTemplate snapshotTemplate;
+    private final TransactionTemplate writeTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private final int chunkSize;
+    private final Duration lockTime;
+
+    public CardBalanceSummaryService(CardBalanceAggregateJdbcRepository aggregateRepository,
+                                     UserRepository userRepository,
+                                     UserService userService,
+                                     JobLockJdbcRepository jobLockRepository,
+                                     ReadYourWritesTracker readYourWrites,
+                                     PlatformTransactionManager transactionManager,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${app.cards.aggregates.reconcile-chunk-size}") int chunkSize,
+                                     @Value("${app.cards.aggregates.lock-time}") Duration lockTime) {
+        this.aggregateRepository = aggregateRepository;
+        this.userRepository = userRepository;
+        this.userService = userService;
+        this.jobLockRepository = jobLockRepository;
+        this.readYourWrites = readYourWrites;
+        // Сводка и cards читаются из одного снимка: иначе перевод или выпуск карты между двумя
+        // запросами выглядел бы как расхождение. Снимок не read-only — он берётся с основной БД:
+        // на отстающей реплике исправления прошлой сверки могут быть ещё не видны
+        this.snapshotTemplate = new TransactionTemplate(transactionManager);
+        this.snapshotTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.writeTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.chunkSize = chunkSize;
+        this.lockTime = lockTime;
+    }
+
+    /**
+     * Сводка по картам пользователя
+     */
+    @Transactional(readOnly = true)
+    public BalanceSummaryDto getUserSummary(Long userId) {
+        readYourWrites.routeReadsFor(userId);
+        List<Aggregate> rows = aggregateRepository.findByUser(userId);
+        if (rows.isEmpty()) {
+            // Строк нет, пока у пользователя не было карт — различаем с несуществующим пользователем
+            userService.getUserById(userId);
+        }
+        return toSummary(userId, rows);
+    }
+
+    /**
+     * Итоги по всей системе
+     */
+    @Transactional(readOnly = true)
+    public BalanceSummaryDto getSystemSummary() {
+        return toSummary(null, aggregateRepository.findTotals());
+    }
+
+    /**
+     * Запуск сверки по расписанию
+     */
+    @Scheduled(cron = "${app.cards.aggregates.reconcile-cron}")
+    public void scheduledReconciliation() {
+        reconcile();
+    }
+
+    /**
+     * Сверяет сводку с таблицей cards и исправляет расхождения.
+     * Пользователи обходятся порциями по ID; каждая порция сравнивается в своём снимке,
+     * а исправление записывается приращением (факт − сводка), поэтому изменения карт,
+     * сделанные после снимка, не затираются.
+     *
+     * @return итог сверки; {@code skipped} — если сверку сейчас выполняет другой узел
+     */
+    public BalanceReconciliationResultDto reconcile() {
+        if (!jobLockRepository.tryAcquire(LOCK_NAME, lockTime)) {
+            log.debug("Balance reconciliation is running on another node, skipping");
+            meterRegistry.counter("bank.card.aggregates.reconcile.skipped").increment();
+            return BalanceReconciliationResultDto.builder().skipped(true).build();
+        }
+
+        long startNanos = System.nanoTime();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            long usersChecked = 0;
+            long userMismatches = 0;
+            long afterUserId = 0;
+            List<Long> userIds;
+            do {
+                userIds = userRepository.findIdsAfter(afterUserId, Limit.of(chunkSize));
+                if (userIds.isEmpty()) {
+                    break;
+                }
+                long from = afterUserId;
+                long upTo = userIds.get(userIds.size() - 1);
+                List<Aggregate> corrections = snapshotTemplate.execute(status -> diff(
+                        aggregateRepository.computeUserRange(from, upTo),
+                        aggregateRepository.findUserRange(from, upTo)));
+                if (!corrections.isEmpty()) {
+                    writeTemplate.executeWithoutResult(status -> aggregateRepository.apply(corrections));
+                    userMismatches += corrections.size();
+                }
+                usersChecked += userIds.size();
+                afterUserId = upTo;
+            } while (userIds.size() == chunkSize);
+
+            // Системные итоги сверяются после исправления сводки пользователей: остаются только
+            // расхождения, которых нет ни у одного пользователя
+            List<Aggregate> totalCorrections = snapshotTemplate.execute(status -> diff(
+                    aggregateRepository.computeTotals(), aggregateRepository.findTotals()));
+            if (!totalCorrections.isEmpty()) {
+                writeTemplate.executeWithoutResult(status -> aggregateRepository.applyToTotals(totalCorrections));
+            }
+
+            meterRegistry.counter("bank.card.aggregates.mismatches", "scope", "user").increment(userMismatches);
+            meterRegistry.counter("bank.card.aggregates.mismatches", "scope", "system").increment(totalCorrections.size());
+            if (userMismatches > 0 || !totalCorrections.isEmpty()) {
+                log.warn("Balance summary drifted: fixed {} user rows and {} system totals",
+                        userMismatches, totalCorrections.size());
+            }
+            outcome = "success";
+            return BalanceReconciliationResultDto.builder()
+                    .usersChecked(usersChecked)
+                    .userMismatches(userMismatches)
+                    .totalMismatches(totalCorrections.size())
+                    .durationMs(Duration.ofNanos(System.nanoTime() - startNanos).toMillis())
+                    .build();
+        } finally {
+            jobLockRepository.release(LOCK_NAME);
+            sample.stop(meterRegistry.timer("bank.card.aggregates.reconcile", "outcome", outcome));
+        }
+    }
+
+    /**
+     * Приращения, приводящие сводку к фактическим значениям
+     */
+    private List<Aggregate> diff(List<Aggregate> actual, List<Aggregate> stored) {
+        Map<Key, Aggregate> differences = new LinkedHashMap<>();
+        for (Aggregate row : actual) {
+            differences.merge(new Key(row.userId(), row.status()), row, Aggregate::plus);
+        }
+        for (Aggregate row : stored) {
+            differences.merge(new Key(row.userId(), row.status()), row.negate(), Aggregate::plus);
+        }
+        return differences.values().stream()
+                .filter(difference -> !difference.isZero())
+                .toList();
+    }
+
+    /**
+     * Строки сводки → DTO со всеми статусами (отсутствующие — с нулями)
+     */
+    private BalanceSummaryDto toSummary(Long userId, List<Aggregate> rows) {
+        Map<Status, Aggregate> byStatus = new EnumMap<>(Status.class);
+        rows.forEach(row -> byStatus.put(row.status(), row));
+
+        List<StatusBalanceDto> statuses = new ArrayList<>(Status.values().length);
+        long cardCount = 0;
+        BigDecimal totalBalance = BigDecimal.ZERO;
+        for (Status status : Status.values()) {
+            Aggregate row = byStatus.get(status);
+            long count = row != null ? row.cards() : 0;
+            BigDecimal balance = row != null ? row.balance() : BigDecimal.ZERO;
+            statuses.add(StatusBalanceDto.builder()
+                    .status(status)
+                    .cardCount(count)
+                    .totalBalance(balance)
+                    .build());
+            cardCount += count;
+            totalBalance = totalBalance.add(balance);
+        }
+        return BalanceSummaryDto.builder()
+                .userId(userId)
+                .cardCount(cardCount)
+                .totalBalance(totalBalance)
+                .statuses(statuses)
+                .build();
+    }
+
+    private record Key(long userId, Status status) {
+    }
+}
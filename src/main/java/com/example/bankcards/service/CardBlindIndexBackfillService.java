@@ -0,0 +1,174 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.BlindIndexBackfillResultDto;
+import com.example.bankcards.util.CardBlindIndexUtil;
+import com.example.bankcards.util.CardEncryptionUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Заполнение слепого индекса номера у карт, выпущенных до его появления.
+ * Карты без индекса читаются порциями по ID (keyset), порции расшифровываются и хэшируются
+ * параллельно в нескольких потоках и записываются JDBC batch. Число порций в работе ограничено,
+ * поэтому расход памяти не зависит от числа карт. Повторный запуск продолжает с оставшихся карт.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CardBlindIndexBackfillService {
+
+    private static final String SELECT_CHUNK_SQL =
+            "SELECT id, card_number_encrypted FROM cards " +
+            "WHERE card_number_hash IS NULL AND id > ? ORDER BY id LIMIT ?";
+
+    /**
+     * Обновление только по первичному ключу: повторная запись даёт тот же HMAC,
+     * а условие на card_number_hash могло бы увести планировщик на индекс по почти одним NULL
+     */
+    private static final String UPDATE_HASH_SQL =
+            "UPDATE cards SET card_number_hash = ?, version = version + 1 WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CardEncryptionUtil encryptionUtil;
+    private final CardBlindIndexUtil blindIndexUtil;
+
+    @Value("${app.crypto.blind-index-backfill.chunk-size}")
+    private int chunkSize;
+
+    @Value("${app.crypto.blind-index-backfill.threads}")
+    private int threads;
+
+    /**
+     * Заполняет индекс у всех карт, где он ещё не заполнен.
+     * Одновременно выполняется только один запуск на узел.
+     */
+    public synchronized BlindIndexBackfillResultDto backfill() {
+        long start = System.nanoTime();
+        AtomicLong processed = new AtomicLong();
+        AtomicLong updated = new AtomicLong();
+        AtomicLong duplicates = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        AtomicReference<RuntimeException> error = new AtomicReference<>();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        // Не больше двух порций на поток одновременно: чтение не убегает вперёд обработки
+        Semaphore inFlight = new Semaphore(threads * 2);
+        try {
+            long afterId = 0;
+            while (error.get() == null) {
+                List<EncryptedCard> chunk = jdbcTemplate.query(SELECT_CHUNK_SQL,
+                        (rs, rowNum) -> new EncryptedCard(rs.getLong("id"), rs.getString("card_number_encrypted")),
+                        afterId, chunkSize);
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                afterId = chunk.get(chunk.size() - 1).id();
+                processed.addAndGet(chunk.size());
+
+                inFlight.acquireUninterruptibly();
+                executor.execute(() -> {
+                    try {
+                        ChunkResult result = processChunk(chunk);
+                        updated.addAndGet(result.updated());
+                        duplicates.addAndGet(result.duplicates());
+                        failed.addAndGet(result.failed());
+                    } catch (RuntimeException e) {
+                        error.compareAndSet(null, e);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        } finally {
+            executor.shutdown();
+            awaitTermination(executor);
+        }
+
+        if (error.get() != null) {
+            throw error.get();
+        }
+
+        BlindIndexBackfillResultDto result = BlindIndexBackfillResultDto.builder()
+                .processed(processed.get())
+                .updated(updated.get())
+                .duplicates(duplicates.get())
+                .failed(failed.get())
+                .durationMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start))
+                .build();
+        log.info("Card number blind index backfill finished: {}", result);
+        return result;
+    }
+
+    /**
+     * Расшифровка, хэширование и запись одной порции
+     */
+    private ChunkResult processChunk(List<EncryptedCard> chunk) {
+        List<Object[]> updates = new ArrayList<>(chunk.size());
+        long failed = 0;
+        for (EncryptedCard card : chunk) {
+            try {
+                String number = encryptionUtil.decrypt(card.encryptedNumber());
+                updates.add(new Object[]{blindIndexUtil.hash(number), card.id()});
+            } catch (RuntimeException e) {
+                // Номер зашифрован другим ключом или повреждён — карта остаётся без индекса
+                failed++;
+            }
+        }
+        if (updates.isEmpty()) {
+            return new ChunkResult(0, 0, failed);
+        }
+
+        try {
+            long updated = 0;
+            for (int count : jdbcTemplate.batchUpdate(UPDATE_HASH_SQL, updates)) {
+                updated += count != 0 ? 1 : 0;
+            }
+            return new ChunkResult(updated, 0, failed);
+        } catch (DataIntegrityViolationException e) {
+            // В порции есть дубликат номера — дописываем построчно, чтобы найти конфликтующие карты
+            return updateOneByOne(updates, failed);
+        }
+    }
+
+    private ChunkResult updateOneByOne(List<Object[]> updates, long failed) {
+        long updated = 0;
+        long duplicates = 0;
+        for (Object[] update : updates) {
+            try {
+                updated += jdbcTemplate.update(UPDATE_HASH_SQL, update);
+            } catch (DataIntegrityViolationException e) {
+                log.warn("Card {} has the same number as an already indexed card", update[1]);
+                duplicates++;
+            }
+        }
+        return new ChunkResult(updated, duplicates, failed);
+    }
+
+    private void awaitTermination(ExecutorService executor) {
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record EncryptedCard(long id, String encryptedNumber) {
+    }
+
+    private record ChunkResult(long updated, long duplicates, long failed) {
+    }
+}
@@ -0,0 +1,274 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.CardEventDto;
+import com.example.bankcards.repository.CardEventJdbcRepository;
+import com.example.bankcards.repository.JobLockJdbcRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ретранслятор outbox: каждый узел в своём потоке читает card_events по возрастанию id порциями
+ * по {@code batch-size} и раздаёт события своим SSE-подписчикам ({@link CardEventStreamService}).
+ * Узлы читают outbox независимо, потому что у каждого свои подписчики; после старта узел начинает
+ * с последнего события, пропущенное до подключения клиент получает через Last-Event-ID.
+ * <p>
+ * ID событий выдаются при вставке, а видны они становятся при коммите: пропуск в последовательности id
+ * может оказаться ещё не закоммиченной транзакцией. Такие ID перечитываются, пока событие не появится
+ * или не истечёт {@code gap-timeout} (откат транзакции оставляет пропуск навсегда).
+ * Пропуск, который уже не помещается в отслеживаемые (например, незакоммиченная порция пакетного выпуска
+ * или истечения срока), не перескакивается: курсор и граница доставки стоят перед ним, пока он не заполнится
+ * или не истечёт {@code gap-timeout}. Только тогда его ID пропускаются — с предупреждением в лог и метрикой.
+ * <p>
+ * Устаревшие события удаляются по расписанию порциями; на нескольких узлах удаляет один, взявший блокировку.
+ */
+@Slf4j
+@Service
+public class CardEventRelay implements SmartLifecycle {
+
+    static final String CLEANUP_LOCK_NAME = "card-events-cleanup";
+
+    /**
+     * Больше отдельных пропущенных ID не отслеживаем: на более крупном пропуске ретранслятор останавливается
+     */
+    static final int MAX_GAPS = 1000;
+
+    private final CardEventJdbcRepository eventRepository;
+    private final CardEventStreamService streams;
+    private final JobLockJdbcRepository jobLockRepository;
+    private final Counter relayed;
+    private final Counter gapsFilled;
+    private final Counter gapsExpired;
+    private final Counter gapsOverflowed;
+    private final Counter gapsSkipped;
+
+    private final Duration pollInterval;
+    private final int batchSize;
+    private final Duration gapTimeout;
+    private final Duration heartbeatInterval;
+    private final Duration retention;
+    private final int cleanupChunkSize;
+    private final Duration lockTime;
+
+    /**
+     * ID последнего прочитанного события и ещё не появившиеся ID до него (со сроком ожидания в nanoTime).
+     * Меняются только в потоке ретранслятора
+     */
+    private long cursor;
+    private final TreeMap<Long, Long> gaps = new TreeMap<>();
+
+    /**
+     * Срок ожидания неотслеживаемого пропуска сразу за курсором (nanoTime); {@code null} — ретранслятор не стоит
+     */
+    private Long overflowDeadline;
+
+    private volatile Thread worker;
+
+    public CardEventRelay(CardEventJdbcRepository eventRepository,
+                          CardEventStreamService streams,
+                          JobLockJdbcRepository jobLockRepository,
+                          MeterRegistry meterRegistry,
+                          @Value("${app.cards.events.poll-interval}") Duration pollInterval,
+                          @Value("${app.cards.events.batch-size}") int batchSize,
+                          @Value("${app.cards.events.gap-timeout}") Duration gapTimeout,
+                          @Value("${app.cards.events.heartbeat-interval}") Duration heartbeatInterval,
+                          @Value("${app.cards.events.retention}") Duration retention,
+                          @Value("${app.cards.events.cleanup-chunk-size}") int cleanupChunkSize,
+                          @Value("${app.cards.events.lock-time}") Duration lockTime) {
+        this.eventRepository = eventRepository;
+        this.streams = streams;
+        this.jobLockRepository = jobLockRepository;
+        this.relayed = meterRegistry.counter("bank.card.events.relayed");
+        this.gapsFilled = meterRegistry.counter("bank.card.events.gaps", "outcome", "filled");
+        this.gapsExpired = meterRegistry.counter("bank.card.events.gaps", "outcome", "expired");
+        this.gapsOverflowed = meterRegistry.counter("bank.card.events.gaps", "outcome", "overflow");
+        this.gapsSkipped = meterRegistry.counter("bank.card.events.gaps", "outcome", "skipped");
+        this.pollInterval = pollInterval;
+        this.batchSize = batchSize;
+        this.gapTimeout = gapTimeout;
+        this.heartbeatInterval = heartbeatInterval;
+        this.retention = retention;
+        this.cleanupChunkSize = cleanupChunkSize;
+        this.lockTime = lockTime;
+    }
+
+    @Override
+    public void start() {
+        cursor = eventRepository.findMaxId();
+        streams.dispatch(List.of(), cursor);
+        Thread thread = new Thread(this::run, "card-event-relay");
+        thread.setDaemon(true);
+        worker = thread;
+        thread.start();
+    }
+
+    @Override
+    public void stop() {
+        Thread thread = worker;
+        worker = null;
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return worker != null;
+    }
+
+    private void run() {
+        long nextHeartbeat = System.nanoTime() + heartbeatInterval.toNanos();
+        while (worker == Thread.currentThread()) {
+            try {
+                poll();
+                if (System.nanoTime() - nextHeartbeat >= 0) {
+                    streams.sendHeartbeats();
+                    nextHeartbeat = System.nanoTime() + heartbeatInterval.toNanos();
+                }
+            } catch (RuntimeException e) {
+                // База недоступна и т.п.: курсор не сдвинулся, следующая попытка перечитает то же
+                log.warn("Card event relay poll failed: {}", e.getMessage());
+            }
+            try {
+                Thread.sleep(pollInterval.toMillis());
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Одна итерация: досланные в пропуски события и все новые события порциями по {@code batch-size}.
+     * На пропуске, который не помещается в отслеживаемые, итерация останавливается перед ним
+     */
+    void poll() {
+        streams.dispatch(fillGaps(), deliveredUpTo());
+        List<CardEventDto> batch;
+        boolean stalled = false;
+        do {
+            batch = eventRepository.findAfter(cursor, batchSize);
+            long now = System.nanoTime();
+            List<CardEventDto> ready = new ArrayList<>(batch.size());
+            for (CardEventDto event : batch) {
+                long missing = event.getId() - cursor - 1;
+                if (missing > 0 && gaps.size() + missing > MAX_GAPS && !skipOverflow(missing, event.getId(), now)) {
+                    stalled = true;
+                    break;
+                }
+                if (missing > 0 && gaps.size() + missing <= MAX_GAPS) {
+                    for (long id = cursor + 1; id < event.getId(); id++) {
+                        gaps.put(id, now + gapTimeout.toNanos());
+                    }
+                }
+                overflowDeadline = null;
+                cursor = event.getId();
+                ready.add(event);
+            }
+            relayed.increment(ready.size());
+            streams.dispatch(ready, deliveredUpTo());
+        } while (!stalled && batch.size() == batchSize);
+    }
+
+    /**
+     * Пропуск ID от курсора до {@code nextId} слишком велик, чтобы отслеживать его по одному ID.
+     * Пока не истёк {@code gap-timeout}, ретранслятор ждёт коммита, не сдвигая курсор; потом пропускает ID.
+     *
+     * @return {@code true}, если пропуск пора перешагнуть
+     */
+    private boolean skipOverflow(long missing, long nextId, long now) {
+        if (overflowDeadline == null) {
+            overflowDeadline = now + gapTimeout.toNanos();
+            gapsOverflowed.increment();
+            log.warn("Card event relay is waiting for {} uncommitted event ids {}..{} (tracking {} gaps)",
+                    missing, cursor + 1, nextId - 1, gaps.size());
+            return false;
+        }
+        if (now - overflowDeadline < 0) {
+            return false;
+        }
+        overflowDeadline = null;
+        gapsSkipped.increment(missing);
+        log.warn("Card event relay skipped {} event ids {}..{}: not committed within {}",
+                missing, cursor + 1, nextId - 1, gapTimeout);
+        return true;
+    }
+
+    private List<CardEventDto> fillGaps() {
+        if (gaps.isEmpty()) {
+            return List.of();
+        }
+        List<CardEventDto> filled = new ArrayList<>(eventRepository.findByIds(gaps.keySet()));
+        filled.forEach(event -> gaps.remove(event.getId()));
+        gapsFilled.increment(filled.size());
+
+        long now = System.nanoTime();
+        for (Iterator<Map.Entry<Long, Long>> it = gaps.entrySet().iterator(); it.hasNext(); ) {
+            if (now - it.next().getValue() >= 0) {
+                it.remove();
+                gapsExpired.increment();
+            }
+        }
+        relayed.increment(filled.size());
+        return filled;
+    }
+
+    /**
+     * Все события до этой границы прочитаны: меньше самого раннего ещё не появившегося ID
+     */
+    private long deliveredUpTo() {
+        return gaps.isEmpty() ? cursor : gaps.firstKey() - 1;
+    }
+
+    /**
+     * Запуск по расписанию
+     */
+    @Scheduled(cron = "${app.cards.events.cleanup-cron}")
+    public void scheduledCleanup() {
+        deleteExpiredEvents();
+    }
+
+    /**
+     * Удаляет события старше срока хранения.
+     *
+     * @return число удалённых событий; 0 — если удаление сейчас выполняет другой узел
+     */
+    public int deleteExpiredEvents() {
+        if (!jobLockRepository.tryAcquire(CLEANUP_LOCK_NAME, lockTime)) {
+            log.debug("Card event cleanup is running on another node, skipping");
+            return 0;
+        }
+        try {
+            LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+            int deleted = 0;
+            int chunk;
+            do {
+                chunk = eventRepository.deleteOlderThan(cutoff, cleanupChunkSize);
+                deleted += chunk;
+            } while (chunk == cleanupChunkSize);
+            if (deleted > 0) {
+                log.info("Deleted {} card events older than {}", deleted, retention);
+            }
+            return deleted;
+        } finally {
+            jobLockRepository.release(CLEANUP_LOCK_NAME);
+        }
+    }
+}
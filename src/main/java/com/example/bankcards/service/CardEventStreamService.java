@@ -0,0 +1,254 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.CardEventDto;
+import com.example.bankcards.repository.CardEventJdbcRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * SSE-подписки пользователей на события по их картам.
+ * События приходят от {@link CardEventRelay} порциями: каждому пользователю уходит одно SSE-событие
+ * {@code cards} с массивом его событий. Поле {@code id} SSE — граница, до которой все события уже
+ * доставлены; после переподключения с заголовком Last-Event-ID пропущенное досылается из outbox.
+ * Возможны повторы, клиент отбрасывает их по id события. Если пропущенное уже удалено по сроку хранения
+ * или его слишком много, клиент получает событие {@code reset} и должен заново загрузить список карт.
+ */
+@Slf4j
+@Service
+public class CardEventStreamService {
+
+    static final String EVENTS = "cards";
+    static final String RESET = "reset";
+
+    private final CardEventJdbcRepository eventRepository;
+    private final Duration emitterTimeout;
+    private final int maxStreamsPerUser;
+    private final int replayLimit;
+
+    private final Map<Long, List<Subscription>> streams = new ConcurrentHashMap<>();
+    private final AtomicInteger streamCount = new AtomicInteger();
+    private final Counter delivered;
+
+    /**
+     * Все события с ID не больше этой границы уже разосланы ретранслятором
+     */
+    private volatile long deliveredUpTo;
+
+    public CardEventStreamService(CardEventJdbcRepository eventRepository,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${app.cards.events.emitter-timeout}") Duration emitterTimeout,
+                                  @Value("${app.cards.events.max-streams-per-user}") int maxStreamsPerUser,
+                                  @Value("${app.cards.events.batch-size}") int replayLimit) {
+        this.eventRepository = eventRepository;
+        this.emitterTimeout = emitterTimeout;
+        this.maxStreamsPerUser = maxStreamsPerUser;
+        this.replayLimit = replayLimit;
+        this.delivered = meterRegistry.counter("bank.card.events.delivered");
+        meterRegistry.gauge("bank.card.events.streams", streamCount);
+    }
+
+    /**
+     * Открывает поток событий пользователя.
+     * Сверх {@code max-streams-per-user} потоков одного пользователя закрывается самый старый.
+     *
+     * @param userId      ID пользователя
+     * @param lastEventId значение Last-Event-ID при переподключении или {@code null}
+     */
+    public SseEmitter subscribe(Long userId, Long lastEventId) {
+        Subscription subscription = new Subscription(userId, new SseEmitter(emitterTimeout.toMillis()),
+                lastEventId != null);
+        SseEmitter emitter = subscription.emitter;
+        emitter.onCompletion(() -> unregister(subscription));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(error -> unregister(subscription));
+
+        // Подписка регистрируется до чтения пропущенного: события, разосланные за это время, буферизуются
+        register(subscription);
+        if (lastEventId == null) {
+            subscription.open();
+            return emitter;
+        }
+        try {
+            replay(subscription, lastEventId);
+        } catch (RuntimeException e) {
+            unregister(subscription);
+            throw e;
+        }
+        return emitter;
+    }
+
+    private void replay(Subscription subscription, long lastEventId) {
+        // Все события до этой границы закоммичены до чтения ниже и попадут в него
+        long resumeFrom = deliveredUpTo;
+        List<CardEventDto> missed = eventRepository.findByUserAfter(subscription.userId, lastEventId, replayLimit + 1);
+        // Если самое старое событие в outbox новее lastEventId + 1, часть событий могла быть удалена по сроку хранения
+        Long oldestId = eventRepository.findMinId();
+        boolean truncated = missed.size() > replayLimit
+                || lastEventId < (oldestId != null ? oldestId : resumeFrom + 1) - 1;
+        subscription.finishReplay(truncated ? null : missed, Math.max(lastEventId, resumeFrom));
+    }
+
+    /**
+     * Рассылает порцию событий подписчикам их владельцев
+     *
+     * @param events        события порции, по возрастанию ID (кроме досланных после пропуска)
+     * @param deliveredUpTo все события с ID не больше этой границы разосланы (с учётом этой порции)
+     */
+    void dispatch(List<CardEventDto> events, long deliveredUpTo) {
+        this.deliveredUpTo = deliveredUpTo;
+        if (events.isEmpty() || streams.isEmpty()) {
+            return;
+        }
+        Map<Long, List<CardEventDto>> byUser = new LinkedHashMap<>();
+        for (CardEventDto event : events) {
+            if (streams.containsKey(event.getUserId())) {
+                byUser.computeIfAbsent(event.getUserId(), id -> new ArrayList<>()).add(event);
+            }
+        }
+        byUser.forEach((userId, userEvents) -> {
+            for (Subscription subscription : streams.getOrDefault(userId, List.of())) {
+                subscription.deliver(userEvents, deliveredUpTo);
+            }
+        });
+    }
+
+    /**
+     * Комментарий SSE во все потоки: держит соединение открытым через прокси и выявляет отключившихся клиентов
+     */
+    void sendHeartbeats() {
+        streams.values().forEach(subscriptions -> subscriptions.forEach(Subscription::heartbeat));
+    }
+
+    /**
+     * @return число открытых потоков на этом узле
+     */
+    public int activeStreams() {
+        return streamCount.get();
+    }
+
+    private void register(Subscription subscription) {
+        List<Subscription> evicted = new ArrayList<>();
+        streams.compute(subscription.userId, (userId, subscriptions) -> {
+            List<Subscription> updated = subscriptions != null ? subscriptions : new CopyOnWriteArrayList<>();
+            updated.add(subscription);
+            while (updated.size() > maxStreamsPerUser) {
+                evicted.add(updated.remove(0));
+            }
+            return updated;
+        });
+        streamCount.addAndGet(1 - evicted.size());
+        evicted.forEach(oldest -> oldest.emitter.complete());
+    }
+
+    private void unregister(Subscription subscription) {
+        streams.computeIfPresent(subscription.userId, (userId, subscriptions) -> {
+            if (subscriptions.remove(subscription)) {
+                streamCount.decrementAndGet();
+            }
+            return subscriptions.isEmpty() ? null : subscriptions;
+        });
+    }
+
+    /**
+     * Один открытый поток. Пока досылается пропущенное, события ретранслятора копятся в буфере,
+     * чтобы клиент получил их после досланных, а не вперемешку
+     */
+    private final class Subscription {
+
+        private final Long userId;
+        private final SseEmitter emitter;
+        private boolean replaying;
+        private final List<CardEventDto> buffer = new ArrayList<>();
+        private long bufferedUpTo;
+
+        private Subscription(Long userId, SseEmitter emitter, boolean replaying) {
+            this.userId = userId;
+            this.emitter = emitter;
+            this.replaying = replaying;
+        }
+
+        /**
+         * Первое сообщение отправляет заголовки ответа: клиент сразу видит, что поток открыт
+         */
+        synchronized void open() {
+            send(SseEmitter.event().comment("connected"));
+        }
+
+        synchronized void deliver(List<CardEventDto> events, long deliveredUpTo) {
+            if (replaying) {
+                buffer.addAll(events);
+                bufferedUpTo = Math.max(bufferedUpTo, deliveredUpTo);
+                return;
+            }
+            sendEvents(events, deliveredUpTo);
+        }
+
+        /**
+         * @param missed     пропущенные события или {@code null}, если их не восстановить — тогда клиенту уходит reset
+         * @param resumeFrom граница, до которой клиент получил всё вместе с досланным
+         */
+        synchronized void finishReplay(List<CardEventDto> missed, long resumeFrom) {
+            replaying = false;
+            long deliveredUpTo = Math.max(resumeFrom, bufferedUpTo);
+            if (missed == null) {
+                buffer.clear();
+                send(SseEmitter.event().name(RESET).id(String.valueOf(deliveredUpTo)).data(""));
+                return;
+            }
+            Set<Long> replayed = new HashSet<>();
+            missed.forEach(event -> replayed.add(event.getId()));
+            List<CardEventDto> events = new ArrayList<>(missed);
+            buffer.stream().filter(event -> !replayed.contains(event.getId())).forEach(events::add);
+            buffer.clear();
+            if (events.isEmpty()) {
+                open();
+            } else {
+                sendEvents(events, deliveredUpTo);
+            }
+        }
+
+        synchronized void heartbeat() {
+            if (!replaying) {
+                send(SseEmitter.event().comment("heartbeat"));
+            }
+        }
+
+        private void sendEvents(List<CardEventDto> events, long deliveredUpTo) {
+            if (send(SseEmitter.event()
+                    .name(EVENTS)
+                    .id(String.valueOf(deliveredUpTo))
+                    .data(events, MediaType.APPLICATION_JSON))) {
+                delivered.increment(events.size());
+            }
+        }
+
+        private boolean send(SseEmitter.SseEventBuilder event) {
+            try {
+                emitter.send(event);
+                return true;
+            } catch (IOException | IllegalStateException e) {
+                // Клиент отключился или поток уже закрыт: контейнер завершит запрос сам
+                log.debug("Card event stream of user {} is closed: {}", userId, e.getMessage());
+                unregister(this);
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.config.CacheConfig;
+import com.example.bankcards.dto.CardEventDto;
+import com.example.bankcards.entity.CardEventType;
+import com.example.bankcards.entity.Status;
+import com.example.bankcards.repository.CardBalanceAggregateJdbcRepository;
+import com.example.bankcards.repository.CardBalanceAggregateJdbcRepository.Aggregate;
+import com.example.bankcards.repository.CardEventJdbcRepository;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.JobLockJdbcRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Перевод карт с истёкшим сроком действия в статус EXPIRED.
+ * Карты обновляются порциями: каждая порция — выборка ID по индексу expiry_date и один UPDATE
+ * по этим ID в отдельной короткой транзакции, поэтому строки не блокируются надолго.
+ * На нескольких узлах задачу выполняет только узел, взявший блокировку в job_locks;
+ * если выполнение затянется дольше аренды, параллельный запуск безопасен — UPDATE идемпотентен.
+ */
+@Slf4j
+@Service
+public class CardExpiryService {
+
+    static final String LOCK_NAME = "card-expiry";
+
+    private final CardRepository cardRepository;
+    private final CardBalanceAggregateJdbcRepository aggregateRepository;
+    private final CardEventJdbcRepository cardEventJdbcRepository;
+    private final JobLockJdbcRepository jobLockRepository;
+    private final CacheManager cacheManager;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final DistributionSummary expiredPerRun;
+
+    private final int chunkSize;
+    private final Duration lockTime;
+
+    public CardExpiryService(CardRepository cardRepository,
+                             CardBalanceAggregateJdbcRepository aggregateRepository,
+                             CardEventJdbcRepository cardEventJdbcRepository,
+                             JobLockJdbcRepository jobLockRepository,
+                             CacheManager cacheManager,
+                             PlatformTransactionManager transactionManager,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.cards.expiry.chunk-size}") int chunkSize,
+                             @Value("${app.cards.expiry.lock-time}") Duration lockTime) {
+        this.cardRepository = cardRepository;
+        this.aggregateRepository = aggregateRepository;
+        this.cardEventJdbcRepository = cardEventJdbcRepository;
+        this.jobLockRepository = jobLockRepository;
+        this.cacheManager = cacheManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.expiredPerRun = DistributionSummary.builder("bank.card.expiry.cards")
+                .description("Cards marked as EXPIRED per run")
+                .register(meterRegistry);
+        this.chunkSize = chunkSize;
+        this.lockTime = lockTime;
+    }
+
+    /**
+     * Запуск по расписанию
+     */
+    @Scheduled(cron = "${app.cards.expiry.cron}")
+    public void scheduledExpiry() {
+        expireCards();
+    }
+
+    /**
+     * Помечает все просроченные карты как EXPIRED.
+     *
+     * @return число помеченных карт; 0 — если задачу сейчас выполняет другой узел
+     */
+    public int expireCards() {
+        if (!jobLockRepository.tryAcquire(LOCK_NAME, lockTime)) {
+            log.debug("Card expiry is running on another node, skipping");
+            meterRegistry.counter("bank.card.expiry.skipped").increment();
+            return 0;
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            LocalDate today = LocalDate.now();
+            int expired = 0;
+            ChunkResult chunk;
+            do {
+                chunk = transactionTemplate.execute(status -> expireChunk(today));
+                expired += chunk.expired();
+            } while (chunk.found() == chunkSize);
+
+            expiredPerRun.record(expired);
+            outcome = "success";
+            if (expired > 0) {
+                log.info("Marked {} cards as EXPIRED", expired);
+            }
+            return expired;
+        } finally {
+            jobLockRepository.release(LOCK_NAME);
+            sample.stop(meterRegistry.timer("bank.card.expiry", "outcome", outcome));
+        }
+    }
+
+    /**
+     * Одна порция: выборка ID по индексу и один UPDATE по ним.
+     * Перед UPDATE строки порции блокируются, чтобы перенести их балансы в сводке в EXPIRED точно.
+     * В той же транзакции по каждой карте пишется событие EXPIRED.
+     * Снимки карт удаляются из кэша после коммита порции.
+     */
+    private ChunkResult expireChunk(LocalDate today) {
+        List<Long> cardIds = cardRepository.findIdsToExpire(today, Limit.of(chunkSize));
+        if (cardIds.isEmpty()) {
+            return new ChunkResult(0, 0);
+        }
+        Map<Long, Aggregate> expiring = aggregateRepository.lockNotExpired(cardIds);
+        LocalDateTime now = LocalDateTime.now();
+        int expired = cardRepository.expireCards(cardIds, now);
+        List<Aggregate> deltas = new ArrayList<>(expiring.size() * 2);
+        List<CardEventDto> events = new ArrayList<>(expiring.size());
+        expiring.forEach((cardId, aggregate) -> {
+            deltas.add(aggregate.negate());
+            deltas.add(aggregate.withStatus(Status.EXPIRED));
+            events.add(CardEventDto.builder()
+                    .userId(aggregate.userId())
+                    .cardId(cardId)
+                    .type(CardEventType.EXPIRED)
+                    .status(Status.EXPIRED)
+                    .createdAt(now)
+                    .build());
+        });
+        aggregateRepository.apply(deltas);
+        if (!events.isEmpty()) {
+            cardEventJdbcRepository.appendAll(events);
+        }
+        Cache cardCache = cacheManager.getCache(CacheConfig.CARDS);
+        cardIds.forEach(cardCache::evict);
+        return new ChunkResult(cardIds.size(), expired);
+    }
+
+    private record ChunkResult(int found, int expired) {
+    }
+}
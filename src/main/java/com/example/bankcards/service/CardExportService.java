@@ -0,0 +1,93 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.ExportFormat;
+import com.example.bankcards.repository.CardRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Потоковая выгрузка всех карт (для сверки у администратора).
+ * Карты читаются серверным курсором и сразу пишутся в ответ, без накопления в памяти.
+ */
+@Service
+@RequiredArgsConstructor
+public class CardExportService {
+
+    private static final String CSV_HEADER = "id,userId,cardMask,expiryDate,status,balance,createdAt,updatedAt";
+
+    /**
+     * Как часто сбрасывать буфер в ответ, чтобы клиент получал данные по мере чтения
+     */
+    private static final int FLUSH_EVERY_ROWS = 1000;
+
+    private final CardRepository cardRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Выгружает все карты в указанном формате в выходной поток.
+     * Поток не закрывается — этим управляет вызывающая сторона.
+     */
+    @Transactional(readOnly = true)
+    public void exportCards(ExportFormat format, OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), 64 * 1024);
+
+        try (Stream<CardDto> cards = cardRepository.streamAllCardDtos()) {
+            if (format == ExportFormat.CSV) {
+                writeCsv(cards.iterator(), writer);
+            } else {
+                writeNdjson(cards.iterator(), writer);
+            }
+        }
+        writer.flush();
+    }
+
+    private void writeNdjson(Iterator<CardDto> cards, Writer writer) throws IOException {
+        ObjectWriter jsonWriter = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        long rows = 0;
+        while (cards.hasNext()) {
+            jsonWriter.writeValue(writer, cards.next());
+            writer.write('\n');
+            if (++rows % FLUSH_EVERY_ROWS == 0) {
+                writer.flush();
+            }
+        }
+    }
+
+    private void writeCsv(Iterator<CardDto> cards, Writer writer) throws IOException {
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        long rows = 0;
+        while (cards.hasNext()) {
+            CardDto card = cards.next();
+            writer.write(String.valueOf(card.getId()));
+            writer.write(',');
+            writer.write(String.valueOf(card.getUserId()));
+            writer.write(',');
+            writer.write(card.getCardMask());
+            writer.write(',');
+            writer.write(String.valueOf(card.getExpiryDate()));
+            writer.write(',');
+            writer.write(String.valueOf(card.getStatus()));
+            writer.write(',');
+            writer.write(card.getBalance().toPlainString());
+            writer.write(',');
+            writer.write(card.getCreatedAt() != null ? card.getCreatedAt().toString() : "");
+            writer.write(',');
+            writer.write(card.getUpdatedAt() != null ? card.getUpdatedAt().toString() : "");
+            writer.write('\n');
+            if (++rows % FLUSH_EVERY_ROWS == 0) {
+                writer.flush();
+            }
+        }
+    }
+}
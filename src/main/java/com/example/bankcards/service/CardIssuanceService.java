@@ -0,0 +1,424 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.*;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardEventType;
+import com.example.bankcards.entity.Status;
+import com.example.bankcards.exception.BulkIssueJobNotFoundException;
+import com.example.bankcards.exception.CardActionNotAllowedException;
+import com.example.bankcards.repository.CardBalanceAggregateJdbcRepository;
+import com.example.bankcards.repository.CardBalanceAggregateJdbcRepository.Aggregate;
+import com.example.bankcards.repository.CardEventJdbcRepository;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.util.CardBlindIndexUtil;
+import com.example.bankcards.util.CardEncryptionUtil;
+import com.example.bankcards.util.CardMappingUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Пакетный выпуск карт (массовые кампании, импорт из CSV).
+ * Задача выполняется в фоне порциями: номера шифруются, хэшируются и маскируются параллельно,
+ * карты вставляются Hibernate JDBC batch (ID выдаются из последовательности блоками),
+ * каждая порция — в своей транзакции. Ошибки фиксируются по строкам и не останавливают остальные.
+ * На узле одновременно выполняется одна задача, следующие ждут в очереди.
+ */
+@Slf4j
+@Service
+public class CardIssuanceService {
+
+    private static final String CSV_HEADER_PREFIX = "userId";
+
+    private final CardRepository cardRepository;
+    private final CardBalanceAggregateJdbcRepository aggregateRepository;
+    private final CardEventJdbcRepository cardEventJdbcRepository;
+    private final UserRepository userRepository;
+    private final CardEncryptionUtil encryptionUtil;
+    private final CardBlindIndexUtil blindIndexUtil;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Counter createdCounter;
+    private final Counter failedCounter;
+
+    private final int chunkSize;
+    private final int encryptionThreads;
+    private final int maxRows;
+
+    private final ExecutorService jobExecutor = Executors.newSingleThreadExecutor();
+    private final ExecutorService encryptionExecutor;
+
+    /**
+     * Задачи хранятся в памяти узла и забываются через час после последнего обращения
+     */
+    private final Cache<String, Job> jobs = Caffeine.newBuilder()
+            .maximumSize(1000)
+            .expireAfterAccess(Duration.ofHours(1))
+            .build();
+
+    public CardIssuanceService(CardRepository cardRepository,
+                               CardBalanceAggregateJdbcRepository aggregateRepository,
+                               CardEventJdbcRepository cardEventJdbcRepository,
+                               UserRepository userRepository,
+                               CardEncryptionUtil encryptionUtil,
+                               CardBlindIndexUtil blindIndexUtil,
+                               Validator validator,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.cards.bulk.chunk-size}") int chunkSize,
+                               @Value("${app.cards.bulk.encryption-threads}") int encryptionThreads,
+                               @Value("${app.cards.bulk.max-rows}") int maxRows) {
+        this.cardRepository = cardRepository;
+        this.aggregateRepository = aggregateRepository;
+        this.cardEventJdbcRepository = cardEventJdbcRepository;
+        this.userRepository = userRepository;
+        this.encryptionUtil = encryptionUtil;
+        this.blindIndexUtil = blindIndexUtil;
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.createdCounter = meterRegistry.counter("bank.card.issuance", "outcome", "created");
+        this.failedCounter = meterRegistry.counter("bank.card.issuance", "outcome", "failed");
+        this.chunkSize = chunkSize;
+        this.encryptionThreads = encryptionThreads;
+        this.maxRows = maxRows;
+        this.encryptionExecutor = Executors.newFixedThreadPool(encryptionThreads);
+    }
+
+    /**
+     * Запуск пакетного выпуска по списку заявок; возвращает задачу для отслеживания прогресса
+     */
+    public BulkIssueJobDto startJob(List<CardCreateRequestDto> requests) {
+        return submit(requests, Map.of());
+    }
+
+    /**
+     * Запуск пакетного выпуска из CSV: {@code userId,cardNumber,expiryDate[,balance]},
+     * заголовок необязателен. Нераспознанные строки попадают в ошибки задачи.
+     */
+    public BulkIssueJobDto startImport(InputStream csv) throws IOException {
+        List<CardCreateRequestDto> requests = new ArrayList<>();
+        Map<Integer, String> parseErrors = new HashMap<>();
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(csv, StandardCharsets.UTF_8));
+        String line;
+        boolean first = true;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            if (first) {
+                first = false;
+                if (line.trim().startsWith(CSV_HEADER_PREFIX)) {
+                    continue;
+                }
+            }
+            if (requests.size() >= maxRows) {
+                throw new CardActionNotAllowedException("Bulk issuance is limited to " + maxRows + " rows");
+            }
+            try {
+                requests.add(parseCsvRow(line));
+            } catch (RuntimeException e) {
+                parseErrors.put(requests.size(), "Expected userId,cardNumber,expiryDate[,balance]: " + line);
+                requests.add(null);
+            }
+        }
+        return submit(requests, parseErrors);
+    }
+
+    /**
+     * Прогресс задачи пакетного выпуска
+     */
+    public BulkIssueJobDto getJob(String jobId) {
+        Job job = jobs.getIfPresent(jobId);
+        if (job == null) {
+            throw new BulkIssueJobNotFoundException("Bulk issue job not found: " + jobId);
+        }
+        return job.toDto();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobExecutor.shutdownNow();
+        encryptionExecutor.shutdownNow();
+    }
+
+    private BulkIssueJobDto submit(List<CardCreateRequestDto> requests, Map<Integer, String> parseErrors) {
+        if (requests.size() > maxRows) {
+            throw new CardActionNotAllowedException("Bulk issuance is limited to " + maxRows + " rows");
+        }
+        Job job = new Job(requests.size());
+        jobs.put(job.id, job);
+        jobExecutor.execute(() -> run(job, requests, parseErrors));
+        return job.toDto();
+    }
+
+    private void run(Job job, List<CardCreateRequestDto> requests, Map<Integer, String> parseErrors) {
+        try {
+            for (int from = 0; from < requests.size(); from += chunkSize) {
+                processChunk(job, requests, parseErrors, from, Math.min(from + chunkSize, requests.size()));
+            }
+            job.status = BulkIssueStatus.COMPLETED;
+        } catch (RuntimeException e) {
+            log.error("Bulk issue job {} failed after {} rows", job.id, job.processed.get(), e);
+            job.status = BulkIssueStatus.FAILED;
+        } finally {
+            job.finishedAt = LocalDateTime.now();
+            job.knownUsers.clear();
+            job.seenHashes.clear();
+            log.info("Bulk issue job {} finished: {} created, {} failed of {}",
+                    job.id, job.created.get(), job.failed.get(), job.total);
+        }
+    }
+
+    /**
+     * Одна порция: проверка строк, параллельная подготовка карт, проверка дубликатов и пакетная вставка
+     */
+    private void processChunk(Job job, List<CardCreateRequestDto> requests, Map<Integer, String> parseErrors,
+                              int from, int to) {
+        List<Integer> rows = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            CardCreateRequestDto request = requests.get(i);
+            if (request == null) {
+                fail(job, i, "INVALID_ROW", parseErrors.get(i));
+                continue;
+            }
+            Set<ConstraintViolation<CardCreateRequestDto>> violations = validator.validate(request);
+            if (!violations.isEmpty()) {
+                fail(job, i, "VALIDATION_ERROR", violations.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .collect(Collectors.joining("; ")));
+                continue;
+            }
+            rows.add(i);
+        }
+
+        // Пользователи проверяются одним запросом на порцию, уже проверенные запоминаются на всю задачу
+        Set<Long> unknownUsers = rows.stream()
+                .map(i -> requests.get(i).getUserId())
+                .filter(userId -> !job.knownUsers.containsKey(userId))
+                .collect(Collectors.toSet());
+        if (!unknownUsers.isEmpty()) {
+            Set<Long> existing = userRepository.findExistingIds(unknownUsers);
+            unknownUsers.forEach(userId -> job.knownUsers.put(userId, existing.contains(userId)));
+        }
+        rows.removeIf(i -> {
+            if (!job.knownUsers.get(requests.get(i).getUserId())) {
+                fail(job, i, "USER_NOT_FOUND", "User not found: " + requests.get(i).getUserId());
+                return true;
+            }
+            return false;
+        });
+
+        List<PreparedCard> prepared = prepareCards(requests, rows);
+
+        Set<String> existingHashes = prepared.isEmpty() ? Set.of() : cardRepository.findExistingCardNumberHashes(
+                prepared.stream().map(card -> card.card().getCardNumberHash()).toList());
+        List<PreparedCard> toInsert = new ArrayList<>(prepared.size());
+        for (PreparedCard card : prepared) {
+            String hash = card.card().getCardNumberHash();
+            if (existingHashes.contains(hash) || !job.seenHashes.add(hash)) {
+                fail(job, card.index(), "DUPLICATE_CARD_NUMBER", "Card with this number already exists");
+            } else {
+                toInsert.add(card);
+            }
+        }
+
+        insert(job, toInsert);
+        job.processed.set(to);
+    }
+
+    /**
+     * Шифрование, слепой индекс и маска номеров — параллельно, частями по числу потоков.
+     * Каждая часть шифруется через encryptAll (один Cipher и один вызов SecureRandom на часть).
+     */
+    private List<PreparedCard> prepareCards(List<CardCreateRequestDto> requests, List<Integer> rows) {
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        int sliceSize = (rows.size() + encryptionThreads - 1) / encryptionThreads;
+        List<Future<List<PreparedCard>>> slices = new ArrayList<>();
+        for (int from = 0; from < rows.size(); from += sliceSize) {
+            List<Integer> slice = rows.subList(from, Math.min(from + sliceSize, rows.size()));
+            slices.add(encryptionExecutor.submit(() -> prepareSlice(requests, slice)));
+        }
+
+        List<PreparedCard> prepared = new ArrayList<>(rows.size());
+        try {
+            for (Future<List<PreparedCard>> slice : slices) {
+                prepared.addAll(slice.get());
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Card preparation failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Bulk issue job interrupted", e);
+        }
+        return prepared;
+    }
+
+    private List<PreparedCard> prepareSlice(List<CardCreateRequestDto> requests, List<Integer> rows) {
+        List<String> numbers = rows.stream().map(i -> requests.get(i).getCardNumber()).toList();
+        List<String> encrypted = encryptionUtil.encryptAll(numbers);
+
+        List<PreparedCard> prepared = new ArrayList<>(rows.size());
+        for (int k = 0; k < rows.size(); k++) {
+            CardCreateRequestDto request = requests.get(rows.get(k));
+            Card card = Card.builder()
+                    .cardNumberEncrypted(encrypted.get(k))
+                    .cardNumberHash(blindIndexUtil.hash(numbers.get(k)))
+                    .cardMask(CardMappingUtil.maskCardNumber(numbers.get(k)))
+                    .expiryDate(request.getExpiryDate())
+                    .status(Status.ACTIVE)
+                    .balance(request.getBalance() != null ? request.getBalance() : BigDecimal.ZERO)
+                    .build();
+            prepared.add(new PreparedCard(rows.get(k), request.getUserId(), card));
+        }
+        return prepared;
+    }
+
+    /**
+     * Вставка порции одной транзакцией. Если порция нарушила ограничение (например, тот же номер
+     * параллельно выпущен другим запросом), она откатывается целиком и повторяется по одной карте.
+     */
+    private void insert(Job job, List<PreparedCard> cards) {
+        if (cards.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> persist(cards));
+            job.created.addAndGet(cards.size());
+            createdCounter.increment(cards.size());
+        } catch (DataIntegrityViolationException e) {
+            for (PreparedCard card : cards) {
+                // ID и версия, выданные в откатившейся транзакции, сбрасываются, чтобы карта снова считалась новой
+                card.card().setId(null);
+                card.card().setVersion(null);
+                try {
+                    transactionTemplate.executeWithoutResult(status -> persist(List.of(card)));
+                    job.created.incrementAndGet();
+                    createdCounter.increment();
+                } catch (DataIntegrityViolationException ex) {
+                    fail(job, card.index(), "CONSTRAINT_VIOLATION",
+                            "Card violates a database constraint (duplicate number or deleted user)");
+                }
+            }
+        }
+    }
+
+    private void persist(List<PreparedCard> cards) {
+        List<Card> entities = new ArrayList<>(cards.size());
+        List<Aggregate> deltas = new ArrayList<>(cards.size());
+        for (PreparedCard card : cards) {
+            card.card().setUser(userRepository.getReferenceById(card.userId()));
+            entities.add(card.card());
+            deltas.add(Aggregate.ofCard(card.userId(), card.card().getStatus(), card.card().getBalance()));
+        }
+        cardRepository.saveAllAndFlush(entities);
+        // Приращения складываются по пользователю: одна строка сводки на пользователя порции
+        aggregateRepository.apply(deltas);
+        // События о выпуске — в той же транзакции, ID карт уже назначены при вставке
+        LocalDateTime now = LocalDateTime.now();
+        cardEventJdbcRepository.appendAll(cards.stream()
+                .map(card -> CardEventDto.builder()
+                        .userId(card.userId())
+                        .cardId(card.card().getId())
+                        .type(CardEventType.CREATED)
+                        .status(card.card().getStatus())
+                        .amount(card.card().getBalance())
+                        .createdAt(now)
+                        .build())
+                .toList());
+    }
+
+    private void fail(Job job, int index, String code, String message) {
+        job.failed.incrementAndGet();
+        job.errors.add(BulkIssueRowErrorDto.builder()
+                .index(index)
+                .code(code)
+                .message(message)
+                .build());
+        failedCounter.increment();
+    }
+
+    private CardCreateRequestDto parseCsvRow(String line) {
+        String[] fields = line.split(",", -1);
+        if (fields.length < 3 || fields.length > 4) {
+            throw new IllegalArgumentException("Unexpected number of fields: " + fields.length);
+        }
+        return CardCreateRequestDto.builder()
+                .userId(Long.parseLong(fields[0].trim()))
+                .cardNumber(fields[1].trim())
+                .expiryDate(LocalDate.parse(fields[2].trim()))
+                .balance(fields.length == 4 && !fields[3].isBlank() ? new BigDecimal(fields[3].trim()) : null)
+                .build();
+    }
+
+    private record PreparedCard(int index, Long userId, Card card) {
+    }
+
+    /**
+     * Состояние задачи. Счётчики и ошибки читаются запросами прогресса параллельно с выполнением.
+     */
+    private static final class Job {
+        final String id = UUID.randomUUID().toString();
+        final int total;
+        final LocalDateTime startedAt = LocalDateTime.now();
+        final AtomicInteger processed = new AtomicInteger();
+        final AtomicInteger created = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+        final Queue<BulkIssueRowErrorDto> errors = new ConcurrentLinkedQueue<>();
+        volatile BulkIssueStatus status = BulkIssueStatus.RUNNING;
+        volatile LocalDateTime finishedAt;
+
+        // Используются только потоком задачи
+        final Map<Long, Boolean> knownUsers = new HashMap<>();
+        final Set<String> seenHashes = new HashSet<>();
+
+        Job(int total) {
+            this.total = total;
+        }
+
+        BulkIssueJobDto toDto() {
+            List<BulkIssueRowErrorDto> errorList = new ArrayList<>(errors);
+            errorList.sort(Comparator.comparingInt(BulkIssueRowErrorDto::getIndex));
+            return BulkIssueJobDto.builder()
+                    .jobId(id)
+                    .status(status)
+                    .total(total)
+                    .processed(processed.get())
+                    .created(created.get())
+                    .failed(failed.get())
+                    .errors(errorList)
+                    .startedAt(startedAt)
+                    .finishedAt(finishedAt)
+                    .build();
+        }
+    }
+}
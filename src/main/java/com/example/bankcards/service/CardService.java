@@ -1,101 +1,316 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.config.CacheConfig;
+import com.example.bankcards.config.ReadYourWritesTracker;
+import com.example.bankcards.config.RetryOnConflict;
 import com.example.bankcards.dto.*;
 import com.example.bankcards.entity.*;
 import com.example.bankcards.exception.*;
 import com.example.bankcards.repository.*;
+import com.example.bankcards.repository.CardBalanceAggregateJdbcRepository.Aggregate;
+import com.example.bankcards.util.CardBlindIndexUtil;
 import com.example.bankcards.util.CardEncryptionUtil;
+import com.example.bankcards.util.CardMappingUtil;
+import com.example.bankcards.util.PageCursorUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class CardService {
+
+    /**
+     * Период выписки по умолчанию, если границы не заданы
+     */
+    private static final int DEFAULT_STATEMENT_MONTHS = 12;
+
+    /**
+     * Уникальный индекс слепого индекса номера карты (миграция V5)
+     */
+    private static final String CARD_NUMBER_HASH_INDEX = "uk_cards_card_number_hash";
+
     private final CardRepository cardRepository;
+    private final CardBalanceJdbcRepository cardBalanceJdbcRepository;
+    private final CardTransactionJdbcRepository cardTransactionJdbcRepository;
+    private final CardSearchJdbcRepository cardSearchJdbcRepository;
+    private final CardBalanceAggregateJdbcRepository cardBalanceAggregateJdbcRepository;
+    private final CardEventJdbcRepository cardEventJdbcRepository;
     private final UserRepository userRepository;
+    private final UserService userService;
 
     private final CardEncryptionUtil encryptionUtil;
+    private final CardBlindIndexUtil blindIndexUtil;
+    private final CacheManager cacheManager;
+    private final MeterRegistry meterRegistry;
+    private final ReadYourWritesTracker readYourWrites;
 
     /**
      * Создание новой карты (только админ)
      */
     @Transactional
     public CardDto createCard(CardCreateRequestDto request) {
-        User user = userRepository.findById(request.getUserId())
-                .orElseThrow(() -> new UserNotFoundException("User not found"));
+        // Существование пользователя проверяется через кэш, для связи достаточно ссылки без SELECT
+        userService.getUserById(request.getUserId());
+        User user = userRepository.getReferenceById(request.getUserId());
+
+        // Дубликат номера ищется по слепому индексу, без расшифровки существующих карт
+        String numberHash = blindIndexUtil.hash(request.getCardNumber());
+        if (cardRepository.existsByCardNumberHash(numberHash)) {
+            throw new DuplicateCardNumberException("Card with this number already exists");
+        }
 
         String encryptedNumber = encryptCardNumber(request.getCardNumber());
-        String mask = maskCardNumber(request.getCardNumber());
+        String mask = CardMappingUtil.maskCardNumber(request.getCardNumber());
 
         Card card = Card.builder()
                 .user(user)
                 .cardNumberEncrypted(encryptedNumber)
+                .cardNumberHash(numberHash)
                 .cardMask(mask)
                 .expiryDate(request.getExpiryDate())
                 .status(Status.ACTIVE)
                 .balance(request.getBalance() != null ? request.getBalance() : BigDecimal.ZERO)
                 .build();
 
-        Card savedCard = cardRepository.save(card);
-        return toDto(savedCard);
+        Card savedCard;
+        try {
+            // ID берётся из пула последовательности, поэтому без flush INSERT отложился бы до коммита:
+            // нарушение уникальности всплыло бы вне этого блока, а сводка и событие опередили бы карту
+            savedCard = cardRepository.saveAndFlush(card);
+        } catch (DataIntegrityViolationException e) {
+            if (!isDuplicateCardNumber(e)) {
+                throw e;
+            }
+            // Та же карта выпущена параллельным запросом между проверкой и вставкой
+            throw new DuplicateCardNumberException("Card with this number already exists");
+        }
+        cardBalanceAggregateJdbcRepository.apply(List.of(
+                Aggregate.ofCard(request.getUserId(), savedCard.getStatus(), savedCard.getBalance())));
+        cardEventJdbcRepository.appendAll(List.of(cardEvent(request.getUserId(), savedCard.getId(),
+                CardEventType.CREATED, savedCard.getStatus(), savedCard.getBalance())));
+        CardDto cardDto = CardMappingUtil.toDto(savedCard);
+        cardCache().put(cardDto.getId(), cardDto);
+        return cardDto;
     }
 
     /**
-     * Получение всех карт пользователя с пагинацией
+     * Получение карты по ID (из кэша, при промахе — одним запросом-проекцией)
      */
+    @Transactional(readOnly = true)
+    public CardDto getCard(Long cardId, User currentUser) {
+        readYourWrites.routeReadsFor(currentUser != null ? currentUser.getId() : null);
+        CardDto cardDto = getCachedCard(cardId);
+        checkOwner(cardDto, currentUser);
+        return cardDto;
+    }
+
+    /**
+     * Поиск карты по номеру (только админ) — по слепому индексу, без расшифровки номеров
+     */
+    @Transactional(readOnly = true)
+    public CardDto findCardByNumber(String cardNumber) {
+        return cardRepository.findCardDtoByCardNumberHash(blindIndexUtil.hash(cardNumber))
+                .orElseThrow(() -> new CardNotFoundException("Card not found"));
+    }
+
+    /**
+     * Получение всех карт пользователя с пагинацией.
+     * Пользователь не загружается: карты читаются проекцией по user_id,
+     * существование пользователя проверяется только при пустом результате.
+     */
+    @Transactional(readOnly = true)
     public PageDto<CardDto> getUserCards(Long userId, Pageable pageable) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new UserNotFoundException("User not found"));
-
-        Page<Card> cardPage = cardRepository.findByUser(user, pageable);
-
-        return PageDto.<CardDto>builder()
-                .content(cardPage.getContent().stream().map(this::toDto).toList())
-                .pageNumber(cardPage.getNumber())
-                .pageSize(cardPage.getSize())
-                .totalElements(cardPage.getTotalElements())
-                .totalPages(cardPage.getTotalPages())
-                .first(cardPage.isFirst())
-                .last(cardPage.isLast())
-                .build();
+        readYourWrites.routeReadsFor(userId);
+        Page<CardDto> cardPage = cardRepository.findUserCardDtos(userId, pageable);
+        if (cardPage.isEmpty()) {
+            userService.getUserById(userId);
+        }
+        return CardMappingUtil.toPageDto(cardPage);
+    }
+
+    /**
+     * ETag списка карт пользователя: меняется при изменении, выпуске или удалении любой его карты.
+     * Позволяет ответить 304 на повторный опрос, не загружая и не сериализуя страницу карт
+     */
+    @Transactional(readOnly = true)
+    public String getUserCardsETag(Long userId) {
+        readYourWrites.routeReadsFor(userId);
+        return cardRepository.findUserCardListVersion(userId).toETag();
+    }
+
+    /**
+     * Получение карт пользователя с курсорной пагинацией
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDto<CardDto> getUserCardsByCursor(Long userId, String cursor, int size, boolean withTotal) {
+        readYourWrites.routeReadsFor(userId);
+        long afterId = PageCursorUtil.decode(cursor);
+        List<CardDto> cards = cardRepository.findUserCardDtosAfter(userId, afterId, Limit.of(size + 1));
+        if (cards.isEmpty() && afterId == 0) {
+            userService.getUserById(userId);
+        }
+
+        Long total = withTotal ? cardRepository.countByUserId(userId) : null;
+        return toCursorPageDto(cards, size, total);
     }
 
     /**
-     * Перевод между картами пользователя
+     * Перевод между картами пользователя.
+     * Каждая нога перевода — один условный UPDATE без предварительного чтения карт.
+     * Строки блокируются в порядке возрастания ID карты, поэтому встречные переводы
+     * между одними и теми же картами не приводят к взаимной блокировке.
      */
     @Transactional
+    @RetryOnConflict
     public void transferMoney(CardTransferRequestDto request, User currentUser) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        // Следующие чтения пользователя идут в основную БД, пока реплика не догонит перевод
+        readYourWrites.recordWrite(currentUser.getId());
+        try {
+            doTransfer(request, currentUser);
+            outcome = "success";
+        } catch (InsufficientFundsException e) {
+            outcome = "insufficient_funds";
+            throw e;
+        } catch (CardNotFoundException e) {
+            outcome = "not_found";
+            throw e;
+        } catch (TransferBetweenSameCardException e) {
+            outcome = "same_card";
+            throw e;
+        } finally {
+            sample.stop(meterRegistry.timer("bank.transfer", "outcome", outcome));
+        }
+    }
+
+    private void doTransfer(CardTransferRequestDto request, User currentUser) {
         // Проверяем, что карты не одинаковые
         if (request.getFromCardId().equals(request.getToCardId())) {
             throw new TransferBetweenSameCardException("Cannot transfer to the same card");
         }
 
-        Card fromCard = getActiveCardForUser(request.getFromCardId(), currentUser);
-        Card toCard = getActiveCardForUser(request.getToCardId(), currentUser);
+        LocalDateTime now = LocalDateTime.now();
 
-        // Проверяем баланс
-        if (fromCard.getBalance().compareTo(request.getAmount()) < 0) {
-            throw new InsufficientFundsException("Insufficient funds on card " + fromCard.getId());
+        if (request.getFromCardId() < request.getToCardId()) {
+            debit(request, currentUser, now);
+            credit(request, currentUser, now);
+        } else {
+            credit(request, currentUser, now);
+            debit(request, currentUser, now);
         }
 
-        // Выполняем перевод
-        fromCard.setBalance(fromCard.getBalance().subtract(request.getAmount()));
-        toCard.setBalance(toCard.getBalance().add(request.getAmount()));
+        cardTransactionJdbcRepository.appendAll(toLedgerEntries(request, now));
+        cardEventJdbcRepository.appendAll(List.of(
+                balanceChanged(currentUser.getId(), request.getFromCardId(), request.getAmount().negate(), now),
+                balanceChanged(currentUser.getId(), request.getToCardId(), request.getAmount(), now)));
+
+        // Сводка по картам не меняется: перевод идёт между активными картами одного пользователя
 
-        cardRepository.save(fromCard);
-        cardRepository.save(toCard);
+        // Балансы изменились — снимки карт удаляются из кэша после коммита
+        cardCache().evict(request.getFromCardId());
+        cardCache().evict(request.getToCardId());
+    }
+
+    /**
+     * Пакетный перевод между картами пользователя.
+     * Все карты загружаются одним запросом, переводы проверяются по очереди на снимке балансов,
+     * а итоговые изменения применяются одним JDBC batch в одной транзакции.
+     * Отклонённые переводы не мешают остальным — по каждому возвращается свой результат.
+     */
+    @Transactional
+    @RetryOnConflict
+    public List<TransferResultDto> transferMoneyBatch(List<CardTransferRequestDto> requests, User currentUser) {
+        readYourWrites.recordWrite(currentUser.getId());
+        Set<Long> cardIds = new HashSet<>();
+        for (CardTransferRequestDto request : requests) {
+            cardIds.add(request.getFromCardId());
+            cardIds.add(request.getToCardId());
+        }
+
+        Map<Long, BigDecimal> balances = cardRepository.findActiveCardsByIdsAndUser(cardIds, currentUser).stream()
+                .collect(Collectors.toMap(Card::getId, Card::getBalance));
+        Map<Long, BigDecimal> deltas = new HashMap<>();
+        List<TransferResultDto> results = new ArrayList<>(requests.size());
+
+        for (int i = 0; i < requests.size(); i++) {
+            CardTransferRequestDto request = requests.get(i);
+            Long fromId = request.getFromCardId();
+            Long toId = request.getToCardId();
+            BigDecimal amount = request.getAmount();
+
+            if (fromId.equals(toId)) {
+                results.add(rejected(i, request, "TRANSFER_TO_SAME_CARD", "Cannot transfer to the same card"));
+            } else if (!balances.containsKey(fromId) || !balances.containsKey(toId)) {
+                results.add(rejected(i, request, "CARD_NOT_FOUND", "Card not found, not active, or not yours"));
+            } else if (balances.get(fromId).compareTo(amount) < 0) {
+                results.add(rejected(i, request, "INSUFFICIENT_FUNDS", "Insufficient funds on card " + fromId));
+            } else {
+                balances.merge(fromId, amount.negate(), BigDecimal::add);
+                balances.merge(toId, amount, BigDecimal::add);
+                deltas.merge(fromId, amount.negate(), BigDecimal::add);
+                deltas.merge(toId, amount, BigDecimal::add);
+                results.add(TransferResultDto.builder()
+                        .index(i)
+                        .fromCardId(fromId)
+                        .toCardId(toId)
+                        .amount(amount)
+                        .success(true)
+                        .build());
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        deltas.values().removeIf(delta -> delta.signum() == 0);
+        if (!deltas.isEmpty()) {
+            List<Long> conflicts = cardBalanceJdbcRepository.applyDeltas(deltas, now);
+            if (!conflicts.isEmpty()) {
+                // Карты изменились параллельно после чтения — откатываем весь пакет
+                throw new ConcurrentCardUpdateException("Cards were modified concurrently: " + conflicts + ". Retry the batch");
+            }
+            deltas.keySet().forEach(cardCache()::evict);
+            // Одно событие на карту с итоговым изменением баланса за пакет
+            cardEventJdbcRepository.appendAll(deltas.entrySet().stream()
+                    .map(delta -> balanceChanged(currentUser.getId(), delta.getKey(), delta.getValue(), now))
+                    .toList());
+        }
+
+        // В журнал попадает каждый успешный перевод, даже если суммарно балансы не изменились
+        List<CardTransactionDto> ledgerEntries = new ArrayList<>();
+        for (TransferResultDto result : results) {
+            if (result.isSuccess()) {
+                ledgerEntries.addAll(toLedgerEntries(requests.get(result.getIndex()), now));
+            }
+        }
+        if (!ledgerEntries.isEmpty()) {
+            cardTransactionJdbcRepository.appendAll(ledgerEntries);
+        }
+        return results;
     }
 
     /**
      * Блокировка карты (только админ)
      */
     @Transactional
+    @RetryOnConflict
     public CardDto blockCard(Long cardId, User currentUser) {
+        checkOwner(getCachedCard(cardId), currentUser);
         Card card = cardRepository.findByIdAndUser(cardId, currentUser)
                 .orElseThrow(() -> new CardNotFoundException("Card not found or access denied"));
 
@@ -103,16 +318,21 @@ public class CardService {
             throw new CardActionNotAllowedException("Card is already blocked");
         }
 
-        card.setStatus(Status.BLOCKED);
-        Card savedCard = cardRepository.save(card);
-        return toDto(savedCard);
+        Card savedCard = moveBetweenStatuses(card, Status.BLOCKED);
+        cardEventJdbcRepository.appendAll(List.of(
+                cardEvent(currentUser.getId(), cardId, CardEventType.BLOCKED, Status.BLOCKED, null)));
+        CardDto cardDto = CardMappingUtil.toDto(savedCard);
+        cardCache().put(cardId, cardDto);
+        return cardDto;
     }
 
     /**
      * Активация карты (только админ)
      */
     @Transactional
+    @RetryOnConflict
     public CardDto activateCard(Long cardId, User currentUser) {
+        checkOwner(getCachedCard(cardId), currentUser);
         Card card = cardRepository.findByIdAndUser(cardId, currentUser)
                 .orElseThrow(() -> new CardNotFoundException("Card not found or access denied"));
 
@@ -124,84 +344,260 @@ public class CardService {
             throw new CardActionNotAllowedException("Card is already active");
         }
 
-        card.setStatus(Status.ACTIVE);
-        Card savedCard = cardRepository.save(card);
-        return toDto(savedCard);
+        Card savedCard = moveBetweenStatuses(card, Status.ACTIVE);
+        cardEventJdbcRepository.appendAll(List.of(
+                cardEvent(currentUser.getId(), cardId, CardEventType.ACTIVATED, Status.ACTIVE, null)));
+        CardDto cardDto = CardMappingUtil.toDto(savedCard);
+        cardCache().put(cardId, cardDto);
+        return cardDto;
     }
 
     /**
      * Удаление карты (для админа и пользователя)
      */
     @Transactional
+    @RetryOnConflict
     public void deleteCard(Long cardId) {
-        if (!cardRepository.existsById(cardId)) {
-            throw new CardNotFoundException("Card not found");
-        }
-        cardRepository.deleteById(cardId);
+        Card card = cardRepository.findById(cardId)
+                .orElseThrow(() -> new CardNotFoundException("Card not found"));
+        // Сначала строка карты, затем сводка — в том же порядке, что и при выпуске, переводе и истечении срока
+        cardRepository.delete(card);
+        cardRepository.flush();
+        cardBalanceAggregateJdbcRepository.apply(List.of(
+                Aggregate.ofCard(card.getUser().getId(), card.getStatus(), card.getBalance()).negate()));
+        cardEventJdbcRepository.appendAll(List.of(
+                cardEvent(card.getUser().getId(), cardId, CardEventType.DELETED, null, null)));
+        cardCache().evict(cardId);
     }
 
     /**
      * Получение всех карт в системе (для админа)
      */
+    @Transactional(readOnly = true)
     public PageDto<CardDto> getAllCards(Pageable pageable) {
-        Page<Card> cardPage = cardRepository.findAll(pageable);
-        return PageDto.<CardDto>builder()
-                .content(cardPage.getContent().stream().map(this::toDto).toList())
-                .pageNumber(cardPage.getNumber())
-                .pageSize(cardPage.getSize())
-                .totalElements(cardPage.getTotalElements())
-                .totalPages(cardPage.getTotalPages())
-                .first(cardPage.isFirst())
-                .last(cardPage.isLast())
+        Page<CardDto> cardPage = cardRepository.findAllCardDtos(pageable);
+        return CardMappingUtil.toPageDto(cardPage);
+    }
+
+    /**
+     * Получение всех карт в системе с курсорной пагинацией (для админа)
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDto<CardDto> getAllCardsByCursor(String cursor, int size, boolean withTotal) {
+        long afterId = PageCursorUtil.decode(cursor);
+        List<CardDto> cards = cardRepository.findCardDtosAfter(afterId, Limit.of(size + 1));
+        Long total = withTotal ? cardRepository.count() : null;
+        return toCursorPageDto(cards, size, total);
+    }
+
+    /**
+     * Поиск карт по фильтрам с курсорной пагинацией (для админа)
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDto<CardDto> searchCards(CardSearchFilter filter, String cursor, int size, boolean withTotal) {
+        long afterId = PageCursorUtil.decode(cursor);
+        List<CardDto> cards = cardSearchJdbcRepository.search(filter, afterId, size + 1);
+        Long total = withTotal ? cardSearchJdbcRepository.count(filter) : null;
+        return toCursorPageDto(cards, size, total);
+    }
+
+    /**
+     * Выписка по карте за период (для владельца карты), от новых операций к старым.
+     * Без границ периода берутся последние 12 месяцев; {@code to} включается целиком.
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDto<CardTransactionDto> getCardStatement(Long cardId, LocalDate from, LocalDate to,
+                                                              String cursor, int size, User currentUser) {
+        readYourWrites.routeReadsFor(currentUser != null ? currentUser.getId() : null);
+        checkOwner(getCachedCard(cardId), currentUser);
+        PageCursorUtil.TimeCursor after = PageCursorUtil.decodeTime(cursor);
+
+        LocalDate toDate = to != null ? to : LocalDate.now();
+        LocalDate fromDate = from != null ? from : toDate.minusMonths(DEFAULT_STATEMENT_MONTHS);
+        List<CardTransactionDto> entries = cardTransactionJdbcRepository.findByCard(
+                cardId, fromDate.atStartOfDay(), toDate.plusDays(1).atStartOfDay(), after, size + 1);
+
+        boolean hasNext = entries.size() > size;
+        List<CardTransactionDto> content = hasNext ? entries.subList(0, size) : entries;
+        CardTransactionDto last = hasNext ? content.get(size - 1) : null;
+        return CursorPageDto.<CardTransactionDto>builder()
+                .content(content)
+                .pageSize(size)
+                .hasNext(hasNext)
+                .nextCursor(hasNext ? PageCursorUtil.encode(last.getCreatedAt(), last.getId()) : null)
                 .build();
     }
 
     /**
-     * Вспомогательный метод: получить активную карту пользователя
+     * Списание с карты-источника; при неудаче определяет причину отказа.
+     * Исключение откатывает всю транзакцию, включая уже выполненное зачисление.
      */
-    private Card getActiveCardForUser(Long cardId, User user) {
-        return cardRepository.findActiveCardByIdAndUser(cardId, user)
-                .orElseThrow(() -> new CardNotFoundException("Card not found, not active, or not yours"));
+    private void debit(CardTransferRequestDto request, User currentUser, LocalDateTime now) {
+        int updated = cardRepository.debitActiveCard(request.getFromCardId(), currentUser, request.getAmount(), now);
+        if (updated == 0) {
+            getActiveCardForUser(request.getFromCardId(), currentUser);
+            getActiveCardForUser(request.getToCardId(), currentUser);
+            throw new InsufficientFundsException("Insufficient funds on card " + request.getFromCardId());
+        }
     }
 
     /**
-     * Шифрует номер карты с использованием AES-GCM
+     * Зачисление на карту-получатель
      */
-    private String encryptCardNumber(String cardNumber) {
-        return encryptionUtil.encrypt(cardNumber);
+    private void credit(CardTransferRequestDto request, User currentUser, LocalDateTime now) {
+        int updated = cardRepository.creditActiveCard(request.getToCardId(), currentUser, request.getAmount(), now);
+        if (updated == 0) {
+            throw new CardNotFoundException("Card not found, not active, or not yours");
+        }
     }
 
     /**
-     * Маскирует номер карты в формате: "**** **** **** 1234"
+     * Смена статуса карты вместе с переносом карты и её баланса между строками сводки.
+     * UPDATE карты выполняется до изменения сводки: строки блокируются в том же порядке,
+     * что и при выпуске, переводе и истечении срока, поэтому параллельные операции не встают в дедлок.
      */
-    private String maskCardNumber(String cardNumber) {
-        if (cardNumber == null || cardNumber.length() < 4) {
-            return "**** **** **** ****";
+    private Card moveBetweenStatuses(Card card, Status newStatus) {
+        Aggregate cardAggregate = Aggregate.ofCard(card.getUser().getId(), card.getStatus(), card.getBalance());
+        card.setStatus(newStatus);
+        Card savedCard = cardRepository.saveAndFlush(card);
+        cardBalanceAggregateJdbcRepository.apply(List.of(cardAggregate.negate(), cardAggregate.withStatus(newStatus)));
+        return savedCard;
+    }
+
+    /**
+     * Нарушено ли уникальное ограничение на слепой индекс номера (а не, например, внешний ключ на пользователя)
+     */
+    private static boolean isDuplicateCardNumber(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation && violation.getConstraintName() != null) {
+                return violation.getConstraintName().toLowerCase(Locale.ROOT).contains(CARD_NUMBER_HASH_INDEX);
+            }
         }
+        return false;
+    }
 
-        String cleanNumber = cardNumber.replaceAll("\\D", "");
+    /**
+     * Записи журнала по переводу: списание с карты-источника и зачисление на карту-получатель
+     */
+    private List<CardTransactionDto> toLedgerEntries(CardTransferRequestDto request, LocalDateTime now) {
+        return List.of(
+                CardTransactionDto.builder()
+                        .cardId(request.getFromCardId())
+                        .counterpartyCardId(request.getToCardId())
+                        .type(TransactionType.TRANSFER_OUT)
+                        .amount(request.getAmount().negate())
+                        .createdAt(now)
+                        .build(),
+                CardTransactionDto.builder()
+                        .cardId(request.getToCardId())
+                        .counterpartyCardId(request.getFromCardId())
+                        .type(TransactionType.TRANSFER_IN)
+                        .amount(request.getAmount())
+                        .createdAt(now)
+                        .build());
+    }
+
+    /**
+     * Событие по карте для outbox (рассылается владельцу карты после коммита)
+     */
+    private CardEventDto cardEvent(Long userId, Long cardId, CardEventType type, Status status, BigDecimal amount) {
+        return CardEventDto.builder()
+                .userId(userId)
+                .cardId(cardId)
+                .type(type)
+                .status(status)
+                .amount(amount)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
 
-        if (cleanNumber.length() < 4) {
-            return "**** **** **** ****";
+    /**
+     * Событие об изменении баланса карты на {@code amount}
+     */
+    private CardEventDto balanceChanged(Long userId, Long cardId, BigDecimal amount, LocalDateTime now) {
+        return CardEventDto.builder()
+                .userId(userId)
+                .cardId(cardId)
+                .type(CardEventType.BALANCE_CHANGED)
+                .amount(amount)
+                .createdAt(now)
+                .build();
+    }
+
+    /**
+     * Результат отклонённого перевода в пакете
+     */
+    private TransferResultDto rejected(int index, CardTransferRequestDto request, String code, String message) {
+        return TransferResultDto.builder()
+                .index(index)
+                .fromCardId(request.getFromCardId())
+                .toCardId(request.getToCardId())
+                .amount(request.getAmount())
+                .success(false)
+                .code(code)
+                .message(message)
+                .build();
+    }
+
+    /**
+     * Снимок карты из кэша; при промахе читается проекцией и кладётся в кэш.
+     * Используется только для чтения и проверки владельца — владелец карты не меняется,
+     * поэтому такая проверка не может устареть. Балансы для переводов из кэша не берутся.
+     */
+    private CardDto getCachedCard(Long cardId) {
+        Cache cache = cardCache();
+        CardDto cached = cache.get(cardId, CardDto.class);
+        if (cached != null) {
+            return cached;
+        }
+        CardDto cardDto = cardRepository.findCardDtoById(cardId)
+                .orElseThrow(() -> new CardNotFoundException("Card not found or access denied"));
+        // putIfAbsent не перезапишет более свежий снимок, положенный параллельной мутацией
+        cache.putIfAbsent(cardId, cardDto);
+        return cardDto;
+    }
+
+    /**
+     * Проверка, что карта принадлежит текущему пользователю
+     */
+    private void checkOwner(CardDto cardDto, User currentUser) {
+        if (currentUser == null || !cardDto.getUserId().equals(currentUser.getId())) {
+            throw new CardNotFoundException("Card not found or access denied");
         }
+    }
+
+    private Cache cardCache() {
+        return cacheManager.getCache(CacheConfig.CARDS);
+    }
+
+    /**
+     * Вспомогательный метод: получить активную карту пользователя
+     */
+    private Card getActiveCardForUser(Long cardId, User user) {
+        return cardRepository.findActiveCardByIdAndUser(cardId, user)
+                .orElseThrow(() -> new CardNotFoundException("Card not found, not active, or not yours"));
+    }
 
-        String last4 = cleanNumber.substring(cleanNumber.length() - 4);
-        return "**** **** **** " + last4;
+    /**
+     * Шифрует номер карты с использованием AES-GCM
+     */
+    private String encryptCardNumber(String cardNumber) {
+        return encryptionUtil.encrypt(cardNumber);
     }
 
     /**
-     * Маппинг Card → CardDto
+     * Маппинг выборки keyset-пагинации → CursorPageDto<CardDto>.
+     * Выборка содержит на одну запись больше размера страницы — по ней определяется наличие следующей страницы.
      */
-    private CardDto toDto(Card card) {
-        return CardDto.builder()
-                .id(card.getId())
-                .userId(card.getUser().getId())
-                .cardMask(card.getCardMask())
-                .expiryDate(card.getExpiryDate())
-                .status(card.getStatus())
-                .balance(card.getBalance())
-                .createdAt(card.getCreatedAt())
-                .updatedAt(card.getUpdatedAt())
+    private CursorPageDto<CardDto> toCursorPageDto(List<CardDto> cards, int size, Long totalElements) {
+        boolean hasNext = cards.size() > size;
+        List<CardDto> content = hasNext ? cards.subList(0, size) : cards;
+        return CursorPageDto.<CardDto>builder()
+                .content(content)
+                .pageSize(size)
+                .hasNext(hasNext)
+                .nextCursor(hasNext ? PageCursorUtil.encode(content.get(size - 1).getId()) : null)
+                .totalElements(totalElements)
                 .build();
     }
 
@@ -0,0 +1,62 @@
+package com.example.bankcards.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.time.LocalDate;
+
+/**
+ * Заранее создаёт месячные секции журнала операций (только PostgreSQL).
+ * Секции создаются на текущий месяц и несколько следующих, чтобы вставки не попадали
+ * в секцию по умолчанию. Операция идемпотентна, поэтому безопасна при запуске на нескольких узлах.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CardTransactionPartitionService {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.ledger.partitions-ahead}")
+    private int partitionsAhead;
+
+    private Boolean partitioned;
+
+    /**
+     * Создание недостающих секций при старте и по расписанию
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${app.ledger.partition-cron}")
+    public void ensurePartitions() {
+        if (!isPartitioned()) {
+            return;
+        }
+        LocalDate month = LocalDate.now().withDayOfMonth(1);
+        for (int i = 0; i <= partitionsAhead; i++) {
+            try {
+                jdbcTemplate.queryForObject("SELECT ensure_card_transactions_partition(?)::text",
+                        String.class, Date.valueOf(month.plusMonths(i)));
+            } catch (DataAccessException e) {
+                // Параллельное создание той же секции другим узлом — достаточно одной успешной попытки
+                log.warn("Failed to create card_transactions partition for {}: {}", month.plusMonths(i), e.getMessage());
+            }
+        }
+    }
+
+    private boolean isPartitioned() {
+        if (partitioned == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+            partitioned = "PostgreSQL".equalsIgnoreCase(product);
+        }
+        return partitioned;
+    }
+}
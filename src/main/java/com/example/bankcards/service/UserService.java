@@ -1,11 +1,14 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.config.CacheConfig;
 import com.example.bankcards.dto.UserDto;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.exception.UserNotFoundException;
 import com.example.bankcards.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 @RequiredArgsConstructor
@@ -13,6 +16,12 @@ public class UserService {
 
     private final UserRepository userRepository;
 
+    /**
+     * Получение пользователя по ID (кэшируется: пользователь запрашивается почти в каждом запросе).
+     * При промахе кэша читается с реплики, если она включена.
+     */
+    @Cacheable(cacheNames = CacheConfig.USERS, key = "#id")
+    @Transactional(readOnly = true)
     public UserDto getUserById(Long id) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new UserNotFoundException("User not found"));
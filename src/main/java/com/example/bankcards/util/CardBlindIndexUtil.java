@@ -0,0 +1,88 @@
+package com.example.bankcards.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Слепой индекс номера карты: HMAC-SHA256 от номера на отдельном ключе.
+ * Номер шифруется со случайным IV, поэтому по шифротексту карту не найти;
+ * HMAC детерминирован и позволяет искать карту и проверять дубликаты по обычному индексу,
+ * не раскрывая сам номер без ключа.
+ */
+@Slf4j
+@Component
+public class CardBlindIndexUtil {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int KEY_SIZE_BYTES = 32;
+
+    /**
+     * Максимальное число простаивающих экземпляров Mac в пуле
+     */
+    private static final int POOL_SIZE = Runtime.getRuntime().availableProcessors() * 2;
+
+    private final SecretKeySpec key;
+
+    /**
+     * Пул инициализированных ключом экземпляров Mac (Mac не потокобезопасен, doFinal сбрасывает состояние)
+     */
+    private final BlockingQueue<Mac> macPool = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    private final Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+
+    /**
+     * @param base64Key ключ HMAC в Base64; если не задан — генерируется случайный (для примера),
+     *                  но тогда индекс не переживёт перезапуск приложения
+     */
+    public CardBlindIndexUtil(@Value("${app.crypto.blind-index-key:}") String base64Key) {
+        byte[] rawKey;
+        if (base64Key == null || base64Key.isBlank()) {
+            log.warn("app.crypto.blind-index-key is not set, using a random key: card number lookups will not survive a restart");
+            rawKey = new byte[KEY_SIZE_BYTES];
+            new SecureRandom().nextBytes(rawKey);
+        } else {
+            rawKey = Base64.getDecoder().decode(base64Key);
+        }
+        this.key = new SecretKeySpec(rawKey, ALGORITHM);
+    }
+
+    /**
+     * Вычисляет слепой индекс номера карты (учитываются только цифры)
+     */
+    public String hash(String cardNumber) {
+        String digits = cardNumber.replaceAll("\\D", "");
+        Mac mac = borrowMac();
+        try {
+            return encoder.encodeToString(mac.doFinal(digits.getBytes(StandardCharsets.US_ASCII)));
+        } finally {
+            macPool.offer(mac);
+        }
+    }
+
+    /**
+     * Берёт Mac из пула или создаёт новый, если пул пуст
+     */
+    private Mac borrowMac() {
+        Mac mac = macPool.poll();
+        if (mac != null) {
+            return mac;
+        }
+        try {
+            mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException("Ошибка инициализации HMAC", e);
+        }
+    }
+}
@@ -5,9 +5,20 @@ import javax.crypto.KeyGenerator;
 import javax.crypto.SecretKey;
 import javax.crypto.spec.GCMParameterSpec;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.SecureRandom;
+import java.util.ArrayList;
 import java.util.Base64;
-
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -18,31 +29,58 @@ public class CardEncryptionUtil {
     private static final int IV_SIZE = 12;
     private static final int TAG_LENGTH = 128;
 
+    /**
+     * Максимальное число простаивающих экземпляров Cipher в пуле
+     */
+    private static final int POOL_SIZE = Runtime.getRuntime().availableProcessors() * 2;
+
     private final SecretKey secretKey;
 
+    /**
+     * Общий источник случайности для IV (SecureRandom потокобезопасен, сидируется один раз)
+     */
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    /**
+     * Пул готовых экземпляров Cipher: Cipher.getInstance дорог, а сам Cipher не потокобезопасен,
+     * поэтому экземпляр берётся из пула на время одной операции и возвращается обратно
+     */
+    private final BlockingQueue<Cipher> cipherPool = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    private final Base64.Encoder encoder = Base64.getEncoder();
+    private final Base64.Decoder decoder = Base64.getDecoder();
+
+    private final Timer encryptTimer;
+    private final Timer decryptTimer;
+    private final Timer encryptAllTimer;
+    private final Timer decryptAllTimer;
+
     public CardEncryptionUtil() {
+        this(new SimpleMeterRegistry());
+    }
+
+    @Autowired
+    public CardEncryptionUtil(MeterRegistry meterRegistry) {
         this.secretKey = generateKey();
+        this.encryptTimer = meterRegistry.timer("bank.crypto", "operation", "encrypt");
+        this.decryptTimer = meterRegistry.timer("bank.crypto", "operation", "decrypt");
+        this.encryptAllTimer = meterRegistry.timer("bank.crypto", "operation", "encrypt_all");
+        this.decryptAllTimer = meterRegistry.timer("bank.crypto", "operation", "decrypt_all");
     }
 
     /**
      * Шифрует номер карты
      */
     public String encrypt(String cardNumber) {
+        long start = System.nanoTime();
+        Cipher cipher = borrowCipher();
         try {
-            byte[] iv = generateIv();
-            Cipher cipher = Cipher.getInstance(ALGORITHM);
-            GCMParameterSpec spec = new GCMParameterSpec(TAG_LENGTH, iv);
-            cipher.init(Cipher.ENCRYPT_MODE, secretKey, spec);
-
-            byte[] encrypted = cipher.doFinal(cardNumber.getBytes(StandardCharsets.UTF_8));
-
-            byte[] combined = new byte[iv.length + encrypted.length];
-            System.arraycopy(iv, 0, combined, 0, iv.length);
-            System.arraycopy(encrypted, 0, combined, iv.length, encrypted.length);
-
-            return Base64.getEncoder().encodeToString(combined);
+            return encrypt(cipher, cardNumber, generateIv());
         } catch (Exception e) {
             throw new RuntimeException("Ошибка шифрования номера карты", e);
+        } finally {
+            releaseCipher(cipher);
+            encryptTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         }
     }
 
@@ -50,32 +88,115 @@ public class CardEncryptionUtil {
      * Дешифрует номер карты
      */
     public String decrypt(String encryptedCardNumber) {
+        long start = System.nanoTime();
+        Cipher cipher = borrowCipher();
         try {
-            byte[] decoded = Base64.getDecoder().decode(encryptedCardNumber);
-
-            byte[] iv = new byte[IV_SIZE];
-            byte[] encrypted = new byte[decoded.length - IV_SIZE];
+            return decrypt(cipher, encryptedCardNumber);
+        } catch (Exception e) {
+            throw new RuntimeException("Ошибка дешифрования номера карты", e);
+        } finally {
+            releaseCipher(cipher);
+            decryptTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
 
-            System.arraycopy(decoded, 0, iv, 0, iv.length);
-            System.arraycopy(decoded, iv.length, encrypted, 0, encrypted.length);
+    /**
+     * Шифрует набор номеров карт: один Cipher на весь набор и один вызов SecureRandom для всех IV
+     */
+    public List<String> encryptAll(Collection<String> cardNumbers) {
+        long start = System.nanoTime();
+        List<String> result = new ArrayList<>(cardNumbers.size());
+        byte[] ivs = new byte[IV_SIZE * cardNumbers.size()];
+        secureRandom.nextBytes(ivs);
 
-            Cipher cipher = Cipher.getInstance(ALGORITHM);
-            GCMParameterSpec spec = new GCMParameterSpec(TAG_LENGTH, iv);
-            cipher.init(Cipher.DECRYPT_MODE, secretKey, spec);
+        Cipher cipher = borrowCipher();
+        try {
+            int offset = 0;
+            for (String cardNumber : cardNumbers) {
+                byte[] iv = new byte[IV_SIZE];
+                System.arraycopy(ivs, offset, iv, 0, IV_SIZE);
+                offset += IV_SIZE;
+                result.add(encrypt(cipher, cardNumber, iv));
+            }
+            return result;
+        } catch (Exception e) {
+            throw new RuntimeException("Ошибка шифрования номера карты", e);
+        } finally {
+            releaseCipher(cipher);
+            encryptAllTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
 
-            byte[] decrypted = cipher.doFinal(encrypted);
-            return new String(decrypted, StandardCharsets.UTF_8);
+    /**
+     * Дешифрует набор номеров карт одним экземпляром Cipher
+     */
+    public List<String> decryptAll(Collection<String> encryptedCardNumbers) {
+        long start = System.nanoTime();
+        List<String> result = new ArrayList<>(encryptedCardNumbers.size());
+        Cipher cipher = borrowCipher();
+        try {
+            for (String encryptedCardNumber : encryptedCardNumbers) {
+                result.add(decrypt(cipher, encryptedCardNumber));
+            }
+            return result;
         } catch (Exception e) {
             throw new RuntimeException("Ошибка дешифрования номера карты", e);
+        } finally {
+            releaseCipher(cipher);
+            decryptAllTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         }
     }
 
+    private String encrypt(Cipher cipher, String cardNumber, byte[] iv) throws GeneralSecurityException {
+        GCMParameterSpec spec = new GCMParameterSpec(TAG_LENGTH, iv);
+        cipher.init(Cipher.ENCRYPT_MODE, secretKey, spec);
+
+        byte[] plain = cardNumber.getBytes(StandardCharsets.UTF_8);
+        byte[] combined = new byte[IV_SIZE + cipher.getOutputSize(plain.length)];
+        System.arraycopy(iv, 0, combined, 0, IV_SIZE);
+        cipher.doFinal(plain, 0, plain.length, combined, IV_SIZE);
+
+        return encoder.encodeToString(combined);
+    }
+
+    private String decrypt(Cipher cipher, String encryptedCardNumber) throws GeneralSecurityException {
+        byte[] decoded = decoder.decode(encryptedCardNumber);
+
+        GCMParameterSpec spec = new GCMParameterSpec(TAG_LENGTH, decoded, 0, IV_SIZE);
+        cipher.init(Cipher.DECRYPT_MODE, secretKey, spec);
+
+        byte[] decrypted = cipher.doFinal(decoded, IV_SIZE, decoded.length - IV_SIZE);
+        return new String(decrypted, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Берёт Cipher из пула или создаёт новый, если пул пуст
+     */
+    private Cipher borrowCipher() {
+        Cipher cipher = cipherPool.poll();
+        if (cipher != null) {
+            return cipher;
+        }
+        try {
+            return Cipher.getInstance(ALGORITHM);
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException("Ошибка инициализации шифра", e);
+        }
+    }
+
+    /**
+     * Возвращает Cipher в пул; если пул заполнен, экземпляр просто отбрасывается
+     */
+    private void releaseCipher(Cipher cipher) {
+        cipherPool.offer(cipher);
+    }
+
     /**
      * Генерирует случайный IV (вектор инициализации)
      */
     private byte[] generateIv() {
         byte[] iv = new byte[IV_SIZE];
-        new SecureRandom().nextBytes(iv);
+        secureRandom.nextBytes(iv);
         return iv;
     }
 
@@ -0,0 +1,67 @@
+package com.example.bankcards.util;
+
+import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.PageDto;
+import com.example.bankcards.entity.Card;
+import org.springframework.data.domain.Page;
+
+/**
+ * Маскирование номера карты и маппинг Card → CardDto / Page → PageDto.
+ * Без состояния и зависимостей: номер в DTO не расшифровывается, маска хранится в карте.
+ */
+public final class CardMappingUtil {
+
+    private static final String EMPTY_MASK = "**** **** **** ****";
+
+    private CardMappingUtil() {
+    }
+
+    /**
+     * Маскирует номер карты в формате: "**** **** **** 1234"
+     */
+    public static String maskCardNumber(String cardNumber) {
+        if (cardNumber == null || cardNumber.length() < 4) {
+            return EMPTY_MASK;
+        }
+
+        String cleanNumber = cardNumber.replaceAll("\\D", "");
+
+        if (cleanNumber.length() < 4) {
+            return EMPTY_MASK;
+        }
+
+        String last4 = cleanNumber.substring(cleanNumber.length() - 4);
+        return "**** **** **** " + last4;
+    }
+
+    /**
+     * Маппинг Card → CardDto
+     */
+    public static CardDto toDto(Card card) {
+        return CardDto.builder()
+                .id(card.getId())
+                .userId(card.getUser().getId())
+                .cardMask(card.getCardMask())
+                .expiryDate(card.getExpiryDate())
+                .status(card.getStatus())
+                .balance(card.getBalance())
+                .createdAt(card.getCreatedAt())
+                .updatedAt(card.getUpdatedAt())
+                .build();
+    }
+
+    /**
+     * Маппинг Page → PageDto
+     */
+    public static <T> PageDto<T> toPageDto(Page<T> page) {
+        return PageDto.<T>builder()
+                .content(page.getContent())
+                .pageNumber(page.getNumber())
+                .pageSize(page.getSize())
+                .totalElements(page.getTotalElements())
+                .totalPages(page.getTotalPages())
+                .first(page.isFirst())
+                .last(page.isLast())
+                .build();
+    }
+}
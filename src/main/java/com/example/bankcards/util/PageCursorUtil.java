@@ -0,0 +1,82 @@
+package com.example.bankcards.util;
+
+import com.example.bankcards.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Кодирование курсора keyset-пагинации.
+ * Курсор непрозрачен для клиента: внутри — ID последней записи страницы
+ * (для выборок по времени — время и ID последней записи).
+ */
+public final class PageCursorUtil {
+
+    private static final String PREFIX = "id:";
+    private static final String TIME_PREFIX = "at:";
+
+    private PageCursorUtil() {
+    }
+
+    /**
+     * Кодирует ID последней записи страницы в курсор
+     */
+    public static String encode(long lastId) {
+        byte[] raw = (PREFIX + lastId).getBytes(StandardCharsets.US_ASCII);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+    }
+
+    /**
+     * Декодирует курсор; пустой курсор означает начало выборки
+     */
+    public static long decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            if (!raw.startsWith(PREFIX)) {
+                throw new InvalidCursorException("Invalid page cursor");
+            }
+            return Long.parseLong(raw.substring(PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("Invalid page cursor");
+        }
+    }
+
+    /**
+     * Кодирует время и ID последней записи страницы в курсор (сортировка по времени, затем по ID)
+     */
+    public static String encode(LocalDateTime lastCreatedAt, long lastId) {
+        byte[] raw = (TIME_PREFIX + lastId + ":" + lastCreatedAt).getBytes(StandardCharsets.US_ASCII);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+    }
+
+    /**
+     * Декодирует курсор выборки по времени; пустой курсор означает начало выборки ({@code null})
+     */
+    public static TimeCursor decodeTime(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            int separator = raw.indexOf(':', TIME_PREFIX.length());
+            if (!raw.startsWith(TIME_PREFIX) || separator < 0) {
+                throw new InvalidCursorException("Invalid page cursor");
+            }
+            long id = Long.parseLong(raw.substring(TIME_PREFIX.length(), separator));
+            return new TimeCursor(LocalDateTime.parse(raw.substring(separator + 1)), id);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidCursorException("Invalid page cursor");
+        }
+    }
+
+    /**
+     * Позиция в выборке, упорядоченной по времени и ID
+     */
+    public record TimeCursor(LocalDateTime createdAt, long id) {
+    }
+}
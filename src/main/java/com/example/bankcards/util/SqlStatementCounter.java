@@ -0,0 +1,102 @@
+package com.example.bankcards.util;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Счётчик SQL-запросов текущего потока.
+ * Запросы учитываются прокси DataSource во всех открытых на потоке областях подсчёта
+ * (области могут быть вложенными: запрос целиком и отдельная проверка внутри него).
+ *
+ * <pre>
+ * SqlStatementCounter.assertMaxStatements(2, () -> cardService.getUserCards(userId, pageable));
+ * </pre>
+ */
+public final class SqlStatementCounter {
+
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+    private SqlStatementCounter() {
+    }
+
+    /**
+     * Открывает область подсчёта на текущем потоке
+     */
+    public static Scope start() {
+        Scope scope = new Scope(CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    /**
+     * Открыта ли на текущем потоке хотя бы одна область подсчёта
+     */
+    public static boolean isCounting() {
+        return CURRENT.get() != null;
+    }
+
+    /**
+     * Учитывает выполненный запрос во всех открытых областях потока
+     */
+    public static void record(long elapsedNanos) {
+        for (Scope scope = CURRENT.get(); scope != null; scope = scope.parent) {
+            scope.statements++;
+            scope.elapsedNanos += elapsedNanos;
+        }
+    }
+
+    /**
+     * Выполняет действие и проверяет, что оно уложилось в заданное число SQL-запросов
+     *
+     * @throws AssertionError если запросов оказалось больше
+     */
+    public static <T> T assertMaxStatements(int maxStatements, Supplier<T> action) {
+        T result;
+        Scope scope = start();
+        try {
+            result = action.get();
+        } finally {
+            scope.close();
+        }
+        if (scope.getStatements() > maxStatements) {
+            throw new AssertionError("Expected at most " + maxStatements + " SQL statements but was " + scope.getStatements());
+        }
+        return result;
+    }
+
+    public static void assertMaxStatements(int maxStatements, Runnable action) {
+        assertMaxStatements(maxStatements, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Область подсчёта: число запросов и суммарное время их выполнения в БД
+     */
+    public static final class Scope implements AutoCloseable {
+
+        private final Scope parent;
+        private int statements;
+        private long elapsedNanos;
+
+        private Scope(Scope parent) {
+            this.parent = parent;
+        }
+
+        public int getStatements() {
+            return statements;
+        }
+
+        public Duration getElapsed() {
+            return Duration.ofNanos(elapsedNanos);
+        }
+
+        @Override
+        public void close() {
+            if (CURRENT.get() == this) {
+                CURRENT.set(parent);
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.bankcards;
+
+import com.example.bankcards.dto.CardCreateRequestDto;
+import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.CardService;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Данные для интеграционных тестов. Тесты делят одну встроенную базу,
+ * поэтому логины и номера карт уникальны в пределах запуска.
+ */
+public final class TestData {
+
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    private TestData() {
+    }
+
+    public static User user(UserRepository userRepository, Role role) {
+        return userRepository.save(User.builder()
+                .username("test-user-" + SEQUENCE.incrementAndGet())
+                .password("test")
+                .role(role)
+                .build());
+    }
+
+    /**
+     * Карта через сервис, как при выпуске администратором: со сводкой, событием и слепым индексом
+     */
+    public static CardDto card(CardService cardService, Long userId, String balance) {
+        return cardService.createCard(CardCreateRequestDto.builder()
+                .userId(userId)
+                .cardNumber(String.format("4276%012d", SEQUENCE.incrementAndGet()))
+                .expiryDate(LocalDate.now().plusYears(3))
+                .balance(new BigDecimal(balance))
+                .build());
+    }
+}
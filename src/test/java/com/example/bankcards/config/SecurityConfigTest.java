@@ -0,0 +1,134 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.TestData;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.JwtTokenProvider;
+import com.example.bankcards.service.CardService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Ролевые правила: операции оператора закрыты для USER, а свои карты USER видит только свои.
+ * MockMvc собирается из общего контекста тестов: отдельный контекст заново применил бы миграции к той же базе.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class SecurityConfigTest {
+
+    /**
+     * Операции оператора. Тело запроса не важно: роль проверяется до разбора запроса
+     */
+    private static final List<Route> ADMIN_ROUTES = List.of(
+            new Route(HttpMethod.POST, "/api/cards"),
+            new Route(HttpMethod.DELETE, "/api/cards/1"),
+            new Route(HttpMethod.GET, "/api/cards"),
+            new Route(HttpMethod.GET, "/api/cards/cursor"),
+            new Route(HttpMethod.GET, "/api/cards/summary"),
+            new Route(HttpMethod.POST, "/api/cards/summary/reconcile"),
+            new Route(HttpMethod.POST, "/api/cards/lookup"),
+            new Route(HttpMethod.GET, "/api/cards/search"),
+            new Route(HttpMethod.GET, "/api/cards/export"),
+            new Route(HttpMethod.POST, "/api/cards/bulk"),
+            new Route(HttpMethod.POST, "/api/cards/bulk/import"),
+            new Route(HttpMethod.GET, "/api/cards/bulk/1"),
+            new Route(HttpMethod.POST, "/api/cards/blind-index/backfill"),
+            new Route(HttpMethod.GET, "/api/users/1"),
+            new Route(HttpMethod.GET, "/api/cache/stats"));
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private JwtTokenProvider tokenProvider;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CardService cardService;
+
+    private MockMvc mockMvc;
+    private User user;
+    private User otherUser;
+    private User admin;
+
+    private record Route(HttpMethod method, String path) {
+    }
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).apply(springSecurity()).build();
+        user = TestData.user(userRepository, Role.USER);
+        otherUser = TestData.user(userRepository, Role.USER);
+        admin = TestData.user(userRepository, Role.ADMIN);
+        TestData.card(cardService, user.getId(), "10.00");
+        TestData.card(cardService, otherUser.getId(), "20.00");
+    }
+
+    @Test
+    void adminRoutesAreForbiddenForUser() throws Exception {
+        for (Route route : ADMIN_ROUTES) {
+            int status = mockMvc.perform(request(route.method(), route.path())
+                            .header(HttpHeaders.AUTHORIZATION, bearer(user))
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{}"))
+                    .andReturn().getResponse().getStatus();
+            assertThat(status).as("%s %s", route.method(), route.path()).isEqualTo(403);
+        }
+    }
+
+    @Test
+    void adminRoutesPassRoleCheckForAdmin() throws Exception {
+        mockMvc.perform(get("/api/cards").header(HttpHeaders.AUTHORIZATION, bearer(admin)))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/cards/search").param("userId", user.getId().toString())
+                        .header(HttpHeaders.AUTHORIZATION, bearer(admin)))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/users/{id}", user.getId()).header(HttpHeaders.AUTHORIZATION, bearer(admin)))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void adminRoutesRequireToken() throws Exception {
+        mockMvc.perform(get("/api/cards")).andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void userSeesOnlyOwnCards() throws Exception {
+        for (String path : List.of("/api/cards/my", "/api/cards/my/cursor", "/api/cards/my/summary")) {
+            mockMvc.perform(get(path).param("userId", user.getId().toString())
+                            .header(HttpHeaders.AUTHORIZATION, bearer(user)))
+                    .andExpect(status().isOk());
+            // Чужой пользователь неотличим от несуществующего
+            mockMvc.perform(get(path).param("userId", otherUser.getId().toString())
+                            .header(HttpHeaders.AUTHORIZATION, bearer(user)))
+                    .andExpect(status().isNotFound());
+            mockMvc.perform(get(path).param("userId", otherUser.getId().toString())
+                            .header(HttpHeaders.AUTHORIZATION, bearer(admin)))
+                    .andExpect(status().isOk());
+        }
+    }
+
+    private String bearer(User principal) {
+        return "Bearer " + tokenProvider.generateToken(principal.getUsername());
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.TestData;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.JwtTokenProvider;
+import com.example.bankcards.util.SqlStatementCounter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Область подсчёта SQL не остаётся в потоке после запроса, в том числе после асинхронного.
+ * MockMvc выполняет диспатч в потоке теста, поэтому ThreadLocal счётчика проверяется напрямую.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class SqlStatementBudgetInterceptorTest {
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private JwtTokenProvider tokenProvider;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private MockMvc mockMvc;
+    private String adminToken;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).apply(springSecurity()).build();
+        adminToken = "Bearer " + tokenProvider.generateToken(TestData.user(userRepository, Role.ADMIN).getUsername());
+    }
+
+    @Test
+    void synchronousRequestClosesScope() throws Exception {
+        mockMvc.perform(get("/api/cards").header(HttpHeaders.AUTHORIZATION, adminToken))
+                .andExpect(status().isOk());
+
+        assertThat(SqlStatementCounter.isCounting()).isFalse();
+    }
+
+    @Test
+    void streamingExportClosesScopeOnBothDispatches() throws Exception {
+        MvcResult started = mockMvc.perform(get("/api/cards/export").header(HttpHeaders.AUTHORIZATION, adminToken))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertThat(SqlStatementCounter.isCounting()).as("after first dispatch").isFalse();
+
+        mockMvc.perform(asyncDispatch(started)).andExpect(status().isOk());
+        assertThat(SqlStatementCounter.isCounting()).as("after async dispatch").isFalse();
+    }
+
+    @Test
+    void eventStreamClosesScope() throws Exception {
+        mockMvc.perform(get("/api/cards/events").header(HttpHeaders.AUTHORIZATION, adminToken))
+                .andExpect(request().asyncStarted());
+
+        assertThat(SqlStatementCounter.isCounting()).isFalse();
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.bankcards.controller;
+
+import com.example.bankcards.TestData;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.JwtTokenProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Условный GET пользователя: ETag — дайджест полей, повторный запрос с If-None-Match получает 304,
+ * а одна дата If-Modified-Since без ETag — нет.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class UserControllerTest {
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private JwtTokenProvider tokenProvider;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private MockMvc mockMvc;
+    private String adminToken;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).apply(springSecurity()).build();
+        adminToken = "Bearer " + tokenProvider.generateToken(TestData.user(userRepository, Role.ADMIN).getUsername());
+    }
+
+    @Test
+    void unchangedUserIsNotModified() throws Exception {
+        User user = TestData.user(userRepository, Role.USER);
+
+        String eTag = mockMvc.perform(get("/api/users/{id}", user.getId()).header(HttpHeaders.AUTHORIZATION, adminToken))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, CardController.REVALIDATE.getHeaderValue()))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(eTag).matches("\"[0-9a-f]{64}\"");
+
+        mockMvc.perform(get("/api/users/{id}", user.getId())
+                        .header(HttpHeaders.AUTHORIZATION, adminToken)
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, CardController.REVALIDATE.getHeaderValue()));
+    }
+
+    @Test
+    void ifModifiedSinceAloneIsNotTrusted() throws Exception {
+        User user = TestData.user(userRepository, Role.USER);
+
+        // Правка роли в обход API не меняет createdAt, поэтому условие по дате не должно давать 304
+        mockMvc.perform(get("/api/users/{id}", user.getId())
+                        .header(HttpHeaders.AUTHORIZATION, adminToken)
+                        .header(HttpHeaders.IF_MODIFIED_SINCE, "Fri, 31 Dec 2100 23:59:59 GMT"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.LAST_MODIFIED));
+    }
+
+    @Test
+    void differentUsersHaveDifferentETags() throws Exception {
+        String first = userETag(TestData.user(userRepository, Role.USER));
+        String second = userETag(TestData.user(userRepository, Role.USER));
+
+        assertThat(first).isNotEqualTo(second);
+    }
+
+    private String userETag(User user) throws Exception {
+        return mockMvc.perform(get("/api/users/{id}", user.getId()).header(HttpHeaders.AUTHORIZATION, adminToken))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+}
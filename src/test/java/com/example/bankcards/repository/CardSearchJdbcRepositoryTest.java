@@ -0,0 +1,136 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.TestData;
+import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.CardSearchFilter;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.Status;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Поиск карт: любая комбинация фильтров даёт те же карты, что и прямая проверка условий,
+ * постранично и в подсчёте.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class CardSearchJdbcRepositoryTest {
+
+    private static final int CARDS = 120;
+    private static final String[] LAST4 = {"0042", "1234", "9999"};
+
+    @Autowired
+    private CardSearchJdbcRepository searchRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private long userId;
+    private LocalDate today;
+
+    /**
+     * Карта в виде, удобном для прямой проверки фильтров
+     */
+    private record Row(long id, long userId, Status status, LocalDate expiryDate, String last4) {
+    }
+
+    @BeforeEach
+    void setUp() {
+        long[] userIds = {
+                TestData.user(userRepository, Role.USER).getId(),
+                TestData.user(userRepository, Role.USER).getId()};
+        userId = userIds[0];
+        today = LocalDate.now();
+
+        Status[] statuses = Status.values();
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO cards (user_id, card_number_encrypted, card_mask, card_last4, expiry_date, status, balance) " +
+                        "VALUES (?, 'encrypted', ?, ?, ?, ?, 100.00)",
+                IntStream.range(0, CARDS).boxed().toList(), CARDS,
+                (ps, i) -> {
+                    String last4 = LAST4[i % LAST4.length];
+                    ps.setLong(1, userIds[i % userIds.length]);
+                    ps.setString(2, "**** **** **** " + last4);
+                    ps.setString(3, last4);
+                    ps.setDate(4, Date.valueOf(today.plusDays(i % 60 - 20)));
+                    ps.setString(5, statuses[i % statuses.length].name());
+                });
+    }
+
+    @Test
+    void everyFilterCombinationMatchesDirectCheck() {
+        List<Row> rows = jdbcTemplate.query("SELECT id, user_id, status, expiry_date, card_last4 FROM cards ORDER BY id",
+                (rs, rowNum) -> new Row(rs.getLong("id"), rs.getLong("user_id"), Status.valueOf(rs.getString("status")),
+                        rs.getDate("expiry_date").toLocalDate(), rs.getString("card_last4")));
+
+        for (int mask = 0; mask < 32; mask++) {
+            CardSearchFilter filter = CardSearchFilter.builder()
+                    .userId((mask & 1) != 0 ? userId : null)
+                    .status((mask & 2) != 0 ? Status.BLOCKED : null)
+                    .expiryFrom((mask & 4) != 0 ? today : null)
+                    .expiryTo((mask & 8) != 0 ? today.plusDays(30) : null)
+                    .last4((mask & 16) != 0 ? "0042" : null)
+                    .build();
+            List<Long> expected = rows.stream().filter(row -> matches(row, filter)).map(Row::id).toList();
+
+            assertThat(searchAllPages(filter, 7)).as("filter %s", filter).isEqualTo(expected);
+            assertThat(searchRepository.count(filter)).as("count for %s", filter).isEqualTo(expected.size());
+        }
+    }
+
+    @Test
+    void searchIsTimedLikeOtherRepositories() {
+        searchRepository.search(CardSearchFilter.builder().userId(userId).build(), 0, 10);
+        searchRepository.count(CardSearchFilter.builder().userId(userId).build());
+
+        for (String method : List.of("search", "count")) {
+            Timer timer = meterRegistry.find("spring.data.repository.invocations")
+                    .tags("repository", "CardSearchJdbcRepository", "method", method, "state", "SUCCESS")
+                    .timer();
+            assertThat(timer).as(method).isNotNull();
+            assertThat(timer.count()).as(method).isPositive();
+        }
+    }
+
+    private List<Long> searchAllPages(CardSearchFilter filter, int pageSize) {
+        List<Long> ids = new ArrayList<>();
+        long afterId = 0;
+        List<CardDto> page;
+        do {
+            page = searchRepository.search(filter, afterId, pageSize);
+            page.forEach(card -> ids.add(card.getId()));
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == pageSize);
+        return ids;
+    }
+
+    private static boolean matches(Row row, CardSearchFilter filter) {
+        return (filter.getUserId() == null || filter.getUserId() == row.userId())
+                && (filter.getStatus() == null || filter.getStatus() == row.status())
+                && (filter.getExpiryFrom() == null || !row.expiryDate().isBefore(filter.getExpiryFrom()))
+                && (filter.getExpiryTo() == null || !row.expiryDate().isAfter(filter.getExpiryTo()))
+                && (filter.getLast4() == null || filter.getLast4().equals(row.last4()));
+    }
+}
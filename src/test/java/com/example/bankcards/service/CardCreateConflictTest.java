@@ -0,0 +1,121 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.TestData;
+import com.example.bankcards.dto.CardCreateRequestDto;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.DuplicateCardNumberException;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.util.CardBlindIndexUtil;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Выпуск карты при конфликте на вставке: параллельный дубликат номера — DuplicateCardNumberException
+ * внутри createCard, а не ошибка при коммите; другие нарушения целостности дубликатом не считаются.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class CardCreateConflictTest {
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CardBlindIndexUtil blindIndexUtil;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void concurrentDuplicateNumberIsReportedAsDuplicate() {
+        User user = TestData.user(userRepository, Role.USER);
+        String cardNumber = String.format("2200%08d0001", user.getId());
+        TransactionTemplate snapshot = new TransactionTemplate(transactionManager);
+        snapshot.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+
+        // Выпуск идёт в транзакции со снимком, взятым до параллельной вставки той же карты:
+        // проверка по слепому индексу её не видит, и дубликат обнаруживается только на INSERT
+        assertThatThrownBy(() -> snapshot.executeWithoutResult(status -> {
+            count("SELECT COUNT(*) FROM cards WHERE user_id = ?", user.getId());
+            insertConcurrently(user.getId(), cardNumber);
+            assertThatThrownBy(() -> cardService.createCard(request(user.getId(), cardNumber)))
+                    .isInstanceOf(DuplicateCardNumberException.class);
+            throw new IllegalStateException("rollback");
+        })).hasMessage("rollback");
+
+        // Сводка и событие о выпуске не записаны
+        assertThat(count("SELECT COUNT(*) FROM cards WHERE user_id = ?", user.getId())).isEqualTo(1);
+        assertThat(count("SELECT COUNT(*) FROM card_events WHERE user_id = ?", user.getId())).isZero();
+        assertThat(count("SELECT COUNT(*) FROM card_balance_aggregates WHERE user_id = ? AND card_count <> 0",
+                user.getId())).isZero();
+    }
+
+    @Test
+    void missingUserIsNotReportedAsDuplicate() {
+        User user = TestData.user(userRepository, Role.USER);
+        // Пользователь попал в кэш, а затем удалён в обход API
+        userService.getUserById(user.getId());
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", user.getId());
+
+        assertThatThrownBy(() -> cardService.createCard(request(user.getId(), String.format("2200%08d0002", user.getId()))))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    private static CardCreateRequestDto request(Long userId, String cardNumber) {
+        return CardCreateRequestDto.builder()
+                .userId(userId)
+                .cardNumber(cardNumber)
+                .expiryDate(LocalDate.now().plusYears(3))
+                .balance(new BigDecimal("10.00"))
+                .build();
+    }
+
+    private int count(String sql, Long userId) {
+        Integer rows = jdbcTemplate.queryForObject(sql, Integer.class, userId);
+        return rows != null ? rows : 0;
+    }
+
+    /**
+     * Та же карта, выпущенная и закоммиченная в другом потоке
+     */
+    private void insertConcurrently(Long userId, String cardNumber) {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(() -> jdbcTemplate.update("INSERT INTO cards (user_id, card_number_encrypted, " +
+                            "card_number_hash, card_mask, card_last4, expiry_date, status, balance) " +
+                            "VALUES (?, 'encrypted', ?, '**** **** **** 0001', '0001', ?, 'ACTIVE', 0)",
+                    userId, blindIndexUtil.hash(cardNumber), LocalDate.now().plusYears(1)))
+                    .get(30, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.TestData;
+import com.example.bankcards.dto.BulkIssueJobDto;
+import com.example.bankcards.dto.BulkIssueStatus;
+import com.example.bankcards.dto.CardCreateRequestDto;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Пакетный выпуск и истечение срока пишут события в card_events, как и операции над одной картой.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class CardEventOutboxTest {
+
+    private static final int BULK_CARDS = 3;
+
+    @Autowired
+    private CardIssuanceService cardIssuanceService;
+
+    @Autowired
+    private CardExpiryService cardExpiryService;
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void bulkIssuanceWritesCreatedEvents() throws Exception {
+        User user = TestData.user(userRepository, Role.USER);
+        List<CardCreateRequestDto> requests = LongStream.range(0, BULK_CARDS)
+                .mapToObj(i -> CardCreateRequestDto.builder()
+                        .userId(user.getId())
+                        .cardNumber(String.format("5536%08d%04d", user.getId(), i))
+                        .expiryDate(LocalDate.now().plusYears(2))
+                        .balance(new BigDecimal("15.00"))
+                        .build())
+                .toList();
+
+        BulkIssueJobDto job = awaitCompletion(cardIssuanceService.startJob(requests).getJobId());
+
+        assertThat(job.getCreated()).isEqualTo(BULK_CARDS);
+        List<Long> cardIds = jdbcTemplate.queryForList(
+                "SELECT id FROM cards WHERE user_id = ? ORDER BY id", Long.class, user.getId());
+        List<Map<String, Object>> events = events(user.getId());
+        assertThat(events).extracting(event -> ((Number) event.get("card_id")).longValue())
+                .containsExactlyElementsOf(cardIds);
+        assertThat(events).allSatisfy(event -> {
+            assertThat(event.get("type")).isEqualTo("CREATED");
+            assertThat(event.get("status")).isEqualTo("ACTIVE");
+            assertThat((BigDecimal) event.get("amount")).isEqualByComparingTo("15.00");
+        });
+    }
+
+    @Test
+    void expiryWritesExpiredEvents() {
+        User user = TestData.user(userRepository, Role.USER);
+        Long cardId = TestData.card(cardService, user.getId(), "5.00").getId();
+        jdbcTemplate.update("UPDATE cards SET expiry_date = ? WHERE id = ?", LocalDate.now().minusDays(1), cardId);
+
+        assertThat(cardExpiryService.expireCards()).isPositive();
+
+        List<Map<String, Object>> events = events(user.getId());
+        assertThat(events).extracting(event -> event.get("type")).containsExactly("CREATED", "EXPIRED");
+        Map<String, Object> expired = events.get(1);
+        assertThat(((Number) expired.get("card_id")).longValue()).isEqualTo(cardId);
+        assertThat(expired.get("status")).isEqualTo("EXPIRED");
+        assertThat(expired.get("amount")).isNull();
+    }
+
+    private List<Map<String, Object>> events(Long userId) {
+        return jdbcTemplate.queryForList(
+                "SELECT card_id, type, status, amount FROM card_events WHERE user_id = ? ORDER BY id", userId);
+    }
+
+    private BulkIssueJobDto awaitCompletion(String jobId) throws InterruptedException {
+        long deadline = System.nanoTime() + 30_000_000_000L;
+        BulkIssueJobDto job = cardIssuanceService.getJob(jobId);
+        while (job.getStatus() == BulkIssueStatus.RUNNING && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+            job = cardIssuanceService.getJob(jobId);
+        }
+        assertThat(job.getStatus()).isEqualTo(BulkIssueStatus.COMPLETED);
+        return job;
+    }
+}
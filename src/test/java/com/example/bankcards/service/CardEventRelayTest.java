@@ -0,0 +1,173 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.TestData;
+import com.example.bankcards.dto.CardEventDto;
+import com.example.bankcards.entity.CardEventType;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.Status;
+import com.example.bankcards.repository.CardEventJdbcRepository;
+import com.example.bankcards.repository.JobLockJdbcRepository;
+import com.example.bankcards.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Пропуск в outbox крупнее отслеживаемого (незакоммиченная порция пакетной операции):
+ * ретранслятор не перескакивает его, пока порция не закоммичена или не истёк gap-timeout.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class CardEventRelayTest {
+
+    private static final Duration GAP_TIMEOUT = Duration.ofMillis(500);
+    private static final int CHUNK = CardEventRelay.MAX_GAPS + 1;
+
+    @Autowired
+    private CardEventJdbcRepository eventRepository;
+
+    @Autowired
+    private JobLockJdbcRepository jobLockRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final List<CardEventDto> dispatched = new CopyOnWriteArrayList<>();
+    private final AtomicLong deliveredUpTo = new AtomicLong();
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private CardEventRelay relay;
+    private long userId;
+
+    @BeforeEach
+    void setUp() {
+        userId = TestData.user(userRepository, Role.USER).getId();
+        CardEventStreamService streams = mock(CardEventStreamService.class);
+        doAnswer(invocation -> {
+            dispatched.addAll(invocation.getArgument(0));
+            deliveredUpTo.set(invocation.getArgument(1));
+            return null;
+        }).when(streams).dispatch(anyList(), anyLong());
+
+        relay = new CardEventRelay(eventRepository, streams, jobLockRepository, meterRegistry,
+                Duration.ofHours(1), 500, GAP_TIMEOUT, Duration.ofHours(1), Duration.ofHours(1), 1000, Duration.ofMinutes(10));
+        // Старт ставит курсор на последнее событие; опрос дальше идёт вручную из теста
+        relay.start();
+        relay.stop();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void largeUncommittedChunkHoldsBackNewerEvents() throws Exception {
+        CountDownLatch commit = new CountDownLatch(1);
+        Future<?> chunk = appendChunkInOpenTransaction(commit, false);
+        eventRepository.appendAll(List.of(event()));
+
+        relay.poll();
+
+        assertThat(userEvents()).isEmpty();
+        long firstChunkId = eventRepository.findMaxId() - CHUNK;
+        assertThat(deliveredUpTo.get()).isLessThan(firstChunkId);
+
+        commit.countDown();
+        chunk.get(30, TimeUnit.SECONDS);
+        relay.poll();
+
+        List<Long> ids = userEvents().stream().map(CardEventDto::getId).toList();
+        assertThat(ids).hasSize(CHUNK + 1).isSorted();
+        assertThat(deliveredUpTo.get()).isEqualTo(ids.get(ids.size() - 1));
+        assertThat(gaps("overflow")).isEqualTo(1);
+        assertThat(gaps("skipped")).isZero();
+    }
+
+    @Test
+    void rolledBackChunkIsSkippedAfterGapTimeout() throws Exception {
+        CountDownLatch rollback = new CountDownLatch(1);
+        Future<?> chunk = appendChunkInOpenTransaction(rollback, true);
+        eventRepository.appendAll(List.of(event()));
+
+        relay.poll();
+        rollback.countDown();
+        chunk.get(30, TimeUnit.SECONDS);
+        relay.poll();
+        assertThat(userEvents()).isEmpty();
+
+        Thread.sleep(GAP_TIMEOUT.toMillis() + 100);
+        relay.poll();
+
+        assertThat(userEvents()).hasSize(1);
+        assertThat(deliveredUpTo.get()).isEqualTo(userEvents().get(0).getId());
+        assertThat(gaps("skipped")).isEqualTo(CHUNK);
+    }
+
+    /**
+     * Порция событий в транзакции другого потока: ID выданы, но события не видны до коммита
+     */
+    private Future<?> appendChunkInOpenTransaction(CountDownLatch finish, boolean rollback) throws InterruptedException {
+        CountDownLatch appended = new CountDownLatch(1);
+        Future<?> chunk = executor.submit(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            eventRepository.appendAll(IntStream.range(0, CHUNK).mapToObj(i -> event()).toList());
+            appended.countDown();
+            try {
+                finish.await(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (rollback) {
+                status.setRollbackOnly();
+            }
+        }));
+        assertThat(appended.await(30, TimeUnit.SECONDS)).isTrue();
+        return chunk;
+    }
+
+    private CardEventDto event() {
+        return CardEventDto.builder()
+                .userId(userId)
+                .cardId(1L)
+                .type(CardEventType.EXPIRED)
+                .status(Status.EXPIRED)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+
+    private List<CardEventDto> userEvents() {
+        return dispatched.stream().filter(event -> event.getUserId() == userId).toList();
+    }
+
+    private double gaps(String outcome) {
+        return meterRegistry.counter("bank.card.events.gaps", "outcome", outcome).count();
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.TestData;
+import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.Status;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.CardBalanceAggregateJdbcRepository;
+import com.example.bankcards.repository.CardBalanceAggregateJdbcRepository.Aggregate;
+import com.example.bankcards.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Порядок блокировок: смена статуса карты, как и истечение срока, сначала блокирует строку карты
+ * и только потом строки сводки. Иначе блокировка и истечение срока одной карты встают в дедлок.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class CardLockOrderTest {
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private CardBalanceAggregateJdbcRepository aggregateRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private User user;
+    private Long cardId;
+
+    @BeforeEach
+    void setUp() {
+        user = TestData.user(userRepository, Role.USER);
+        cardId = TestData.card(cardService, user.getId(), "50.00").getId();
+    }
+
+    @Test
+    void blockWaitsForCardRowBeforeTouchingSummary() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<CardDto> blocked = transactionTemplate.execute(status -> {
+                // Первый шаг порции истечения срока: строка карты заблокирована
+                assertThat(aggregateRepository.lockNotExpired(List.of(cardId))).hasSize(1);
+                Future<CardDto> block = executor.submit(() -> cardService.blockCard(cardId, user));
+                pause();
+                // Второй шаг: изменение строк сводки того же пользователя, пока блокировка ждёт строку карты
+                Aggregate touch = new Aggregate(user.getId(), Status.BLOCKED, 1, BigDecimal.ONE);
+                aggregateRepository.apply(List.of(touch));
+                aggregateRepository.apply(List.of(touch.negate()));
+                assertThat(block).isNotDone();
+                return block;
+            });
+
+            assertThat(blocked.get(30, TimeUnit.SECONDS).getStatus()).isEqualTo(Status.BLOCKED);
+            assertThat(aggregateRepository.findByUser(user.getId()))
+                    .filteredOn(aggregate -> aggregate.cards() != 0)
+                    .containsExactly(new Aggregate(user.getId(), Status.BLOCKED, 1, new BigDecimal("50.00")));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void pause() {
+        try {
+            Thread.sleep(300);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.TestData;
+import com.example.bankcards.config.CacheConfig;
+import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.CursorPageDto;
+import com.example.bankcards.dto.PageDto;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.UserNotFoundException;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.util.PageCursorUtil;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Чтения карт идут проекциями в CardDto: управляемые сущности Card и User не создаются.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class CardReadProjectionTest {
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User user;
+    private List<Long> cardIds;
+
+    @BeforeEach
+    void setUp() {
+        user = TestData.user(userRepository, Role.USER);
+        cardIds = List.of(
+                TestData.card(cardService, user.getId(), "10.00").getId(),
+                TestData.card(cardService, user.getId(), "20.00").getId(),
+                TestData.card(cardService, user.getId(), "30.00").getId());
+        // Карта другого пользователя не должна попасть в выборку
+        TestData.card(cardService, TestData.user(userRepository, Role.USER).getId(), "40.00");
+    }
+
+    @Test
+    void userCardPageIsProjected() {
+        PageDto<CardDto> page = withoutEntityLoads(() -> cardService.getUserCards(user.getId(), PageRequest.of(0, 10)));
+
+        assertThat(page.getContent()).extracting(CardDto::getId).containsExactlyInAnyOrderElementsOf(cardIds);
+        assertThat(page.getContent()).allSatisfy(card -> {
+            assertThat(card.getUserId()).isEqualTo(user.getId());
+            assertThat(card.getCardMask()).matches("\\*{4} \\*{4} \\*{4} \\d{4}");
+        });
+        assertThat(page.getTotalElements()).isEqualTo(3);
+    }
+
+    @Test
+    void userCardCursorPageIsProjected() {
+        CursorPageDto<CardDto> first = withoutEntityLoads(() ->
+                cardService.getUserCardsByCursor(user.getId(), null, 2, true));
+        CursorPageDto<CardDto> second = withoutEntityLoads(() ->
+                cardService.getUserCardsByCursor(user.getId(), first.getNextCursor(), 2, false));
+
+        assertThat(first.getContent()).extracting(CardDto::getId).containsExactlyElementsOf(cardIds.subList(0, 2));
+        assertThat(first.isHasNext()).isTrue();
+        assertThat(first.getTotalElements()).isEqualTo(3);
+        assertThat(second.getContent()).extracting(CardDto::getId).containsExactly(cardIds.get(2));
+        assertThat(second.isHasNext()).isFalse();
+    }
+
+    @Test
+    void allCardsCursorPageIsProjected() {
+        // База общая для всех тестов: начинаем сразу перед картами этого теста
+        String cursor = PageCursorUtil.encode(cardIds.get(0) - 1);
+        CursorPageDto<CardDto> page = withoutEntityLoads(() -> cardService.getAllCardsByCursor(cursor, 10, false));
+
+        assertThat(page.getContent()).extracting(CardDto::getId).containsAll(cardIds);
+    }
+
+    @Test
+    void singleCardIsProjectedOnCacheMiss() {
+        cacheManager.getCache(CacheConfig.CARDS).evict(cardIds.get(0));
+
+        CardDto card = withoutEntityLoads(() -> cardService.getCard(cardIds.get(0), user));
+
+        assertThat(card.getBalance()).isEqualByComparingTo("10.00");
+    }
+
+    @Test
+    void unknownUserIsStillReported() {
+        assertThatThrownBy(() -> cardService.getUserCards(Long.MAX_VALUE, PageRequest.of(0, 10)))
+                .isInstanceOf(UserNotFoundException.class);
+    }
+
+    private <T> T withoutEntityLoads(Supplier<T> read) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        assertThat(statistics.isStatisticsEnabled()).as("hibernate.generate_statistics").isTrue();
+        long loadsBefore = statistics.getEntityLoadCount();
+        long fetchesBefore = statistics.getEntityFetchCount();
+        T result = read.get();
+        assertThat(statistics.getEntityLoadCount() - loadsBefore).as("entities loaded").isZero();
+        assertThat(statistics.getEntityFetchCount() - fetchesBefore).as("entities fetched").isZero();
+        return result;
+    }
+}
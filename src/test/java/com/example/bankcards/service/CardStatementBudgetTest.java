@@ -0,0 +1,108 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.TestData;
+import com.example.bankcards.dto.CardTransferRequestDto;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.util.SqlStatementCounter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Бюджеты SQL-запросов горячих путей: рост числа запросов (N+1, лишний count, чтение перед UPDATE) ломает тест.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class CardStatementBudgetTest {
+
+    private static final int CARDS = 25;
+    private static final int PAGE_SIZE = 10;
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User user;
+    private List<Long> cardIds;
+
+    @BeforeEach
+    void setUp() {
+        user = TestData.user(userRepository, Role.USER);
+        cardIds = new ArrayList<>();
+        for (int i = 0; i < CARDS; i++) {
+            cardIds.add(TestData.card(cardService, user.getId(), "100.00").getId());
+        }
+    }
+
+    @Test
+    void counterSeesStatements() {
+        // Без прокси DataSource любой бюджет выполнялся бы и остальные тесты ничего бы не проверяли
+        assertThatThrownBy(() -> SqlStatementCounter.assertMaxStatements(0,
+                () -> cardService.getUserCardsByCursor(user.getId(), null, PAGE_SIZE, false)))
+                .isInstanceOf(AssertionError.class);
+    }
+
+    @Test
+    void userCardPageIsContentPlusCount() {
+        SqlStatementCounter.assertMaxStatements(2, () -> cardService.getUserCards(user.getId(), PageRequest.of(0, PAGE_SIZE)));
+        SqlStatementCounter.assertMaxStatements(2, () -> cardService.getUserCards(user.getId(), PageRequest.of(1, PAGE_SIZE)));
+    }
+
+    @Test
+    void lastUserCardPageSkipsCount() {
+        SqlStatementCounter.assertMaxStatements(1, () -> cardService.getUserCards(user.getId(), PageRequest.of(2, PAGE_SIZE)));
+    }
+
+    @Test
+    void cursorPagesAreOneStatement() {
+        SqlStatementCounter.assertMaxStatements(1, () -> cardService.getUserCardsByCursor(user.getId(), null, PAGE_SIZE, false));
+        SqlStatementCounter.assertMaxStatements(1, () -> cardService.getAllCardsByCursor(null, PAGE_SIZE, false));
+    }
+
+    @Test
+    void userCardListETagIsOneStatement() {
+        SqlStatementCounter.assertMaxStatements(1, () -> cardService.getUserCardsETag(user.getId()));
+    }
+
+    @Test
+    void cachedCardNeedsNoStatements() {
+        cardService.getCard(cardIds.get(0), user);
+
+        SqlStatementCounter.assertMaxStatements(0, () -> cardService.getCard(cardIds.get(0), user));
+    }
+
+    @Test
+    void transferIsTwoUpdatesAndTwoBatches() {
+        // Списание, зачисление, batch журнала, batch событий
+        SqlStatementCounter.assertMaxStatements(4, () -> cardService.transferMoney(
+                new CardTransferRequestDto(cardIds.get(0), cardIds.get(1), new BigDecimal("5.00")), user));
+    }
+
+    @Test
+    void batchTransferDoesNotGrowWithBatchSize() {
+        List<CardTransferRequestDto> requests = new ArrayList<>();
+        for (int i = 0; i < CARDS - 1; i++) {
+            requests.add(new CardTransferRequestDto(cardIds.get(i), cardIds.get(i + 1), BigDecimal.ONE));
+        }
+
+        // Чтение карт, batch балансов, batch событий, batch журнала
+        List<?> results = SqlStatementCounter.assertMaxStatements(4,
+                () -> cardService.transferMoneyBatch(requests, user));
+
+        assertThat(results).hasSize(requests.size());
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.TestData;
+import com.example.bankcards.dto.CardTransferRequestDto;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.InsufficientFundsException;
+import com.example.bankcards.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Переводы между несколькими «горячими» картами из многих потоков: деньги не появляются и не пропадают,
+ * баланс не уходит в минус, и каждый успешный перевод записан в журнал ровно двумя строками.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class CardTransferConcurrencyTest {
+
+    private static final int CARDS = 4;
+    private static final int THREADS = 8;
+    private static final int TRANSFERS_PER_THREAD = 100;
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("20.00");
+    private static final BigDecimal AMOUNT = new BigDecimal("3.00");
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+    private List<Long> cardIds;
+
+    @BeforeEach
+    void setUp() {
+        user = TestData.user(userRepository, Role.USER);
+        cardIds = new ArrayList<>();
+        for (int i = 0; i < CARDS; i++) {
+            cardIds.add(TestData.card(cardService, user.getId(), INITIAL_BALANCE.toPlainString()).getId());
+        }
+    }
+
+    @Test
+    void concurrentTransfersKeepBalancesAndLedgerConsistent() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    int succeeded = 0;
+                    for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                        if (transferBetweenRandomCards()) {
+                            succeeded++;
+                        }
+                    }
+                    return succeeded;
+                }));
+            }
+            start.countDown();
+            int succeeded = 0;
+            for (Future<Integer> result : results) {
+                succeeded += result.get(2, TimeUnit.MINUTES);
+            }
+
+            assertThat(succeeded).isPositive();
+            assertThat(totalBalance()).isEqualByComparingTo(INITIAL_BALANCE.multiply(BigDecimal.valueOf(CARDS)));
+            Map<Long, BigDecimal> balances = balances();
+            assertThat(balances.values()).allSatisfy(balance -> assertThat(balance).isNotNegative());
+
+            // Журнал: по строке списания и зачисления на каждый успешный перевод
+            assertThat(ledgerRows("TRANSFER_OUT")).isEqualTo(succeeded);
+            assertThat(ledgerRows("TRANSFER_IN")).isEqualTo(succeeded);
+            // Баланс каждой карты — начальный плюс сумма её строк в журнале
+            Map<Long, BigDecimal> ledgerSums = ledgerSums();
+            for (Long cardId : cardIds) {
+                assertThat(INITIAL_BALANCE.add(ledgerSums.getOrDefault(cardId, BigDecimal.ZERO)))
+                        .as("card %d", cardId)
+                        .isEqualByComparingTo(balances.get(cardId));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void rejectedTransferChangesNothing() {
+        CardTransferRequestDto request = new CardTransferRequestDto(
+                cardIds.get(0), cardIds.get(1), INITIAL_BALANCE.add(BigDecimal.ONE));
+
+        assertThatThrownBy(() -> cardService.transferMoney(request, user))
+                .isInstanceOf(InsufficientFundsException.class);
+
+        assertThat(balances().values()).allSatisfy(balance -> assertThat(balance).isEqualByComparingTo(INITIAL_BALANCE));
+        assertThat(ledgerRows("TRANSFER_OUT") + ledgerRows("TRANSFER_IN")).isZero();
+    }
+
+    private boolean transferBetweenRandomCards() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int from = random.nextInt(CARDS);
+        int to = (from + 1 + random.nextInt(CARDS - 1)) % CARDS;
+        try {
+            cardService.transferMoney(new CardTransferRequestDto(cardIds.get(from), cardIds.get(to), AMOUNT), user);
+            return true;
+        } catch (InsufficientFundsException e) {
+            // Допустимый исход при случайных направлениях — карта временно опустела
+            return false;
+        }
+    }
+
+    private BigDecimal totalBalance() {
+        return jdbcTemplate.queryForObject(
+                "SELECT SUM(balance) FROM cards WHERE user_id = ?", BigDecimal.class, user.getId());
+    }
+
+    private Map<Long, BigDecimal> balances() {
+        return jdbcTemplate.query("SELECT id, balance FROM cards WHERE user_id = ?",
+                        (rs, rowNum) -> Map.entry(rs.getLong("id"), rs.getBigDecimal("balance")), user.getId())
+                .stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+    }
+
+    private int ledgerRows(String type) {
+        Integer rows = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM card_transactions t JOIN cards c ON c.id = t.card_id " +
+                        "WHERE c.user_id = ? AND t.type = ?", Integer.class, user.getId(), type);
+        return rows != null ? rows : 0;
+    }
+
+    private Map<Long, BigDecimal> ledgerSums() {
+        return jdbcTemplate.query("SELECT t.card_id, SUM(t.amount) AS total FROM card_transactions t " +
+                                "JOIN cards c ON c.id = t.card_id WHERE c.user_id = ? GROUP BY t.card_id",
+                        (rs, rowNum) -> Map.entry(rs.getLong("card_id"), rs.getBigDecimal("total")), user.getId())
+                .stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+    }
+}